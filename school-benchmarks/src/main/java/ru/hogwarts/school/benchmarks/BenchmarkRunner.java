@@ -0,0 +1,29 @@
+package ru.hogwarts.school.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH entry point that writes JSON results to {@code target/jmh-result.json} unless
+ * {@code -rf}/{@code -rff} say otherwise. All other JMH command line options are passed through.
+ * <pre>
+ * mvn -f school install -DskipTests
+ * mvn -f school-benchmarks package
+ * java -jar school-benchmarks/target/benchmarks.jar [jmh options]
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Options options = new OptionsBuilder()
+                .parent(commandLine)
+                .resultFormat(commandLine.getResultFormat().orElse(ResultFormatType.JSON))
+                .result(commandLine.getResult().orElse("target/jmh-result.json"))
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,85 @@
+package ru.hogwarts.school.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.PreviewStatus;
+import ru.hogwarts.school.model.Student;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the entities the REST API returns, using a plain {@link ObjectMapper}
+ * as Spring MVC would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private static final int FACULTY_STUDENTS = 30;
+    private static final int PREVIEW_BYTES = 8 * 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Student student;
+    private Faculty faculty;
+    private Avatar avatar;
+
+    @Setup
+    public void setUp() {
+        faculty = new Faculty();
+        faculty.setId(1L);
+        faculty.setName("Gryffindor");
+        faculty.setColor("red");
+
+        Set<Student> students = new HashSet<>();
+        for (int i = 0; i < FACULTY_STUDENTS; i++) {
+            Student s = new Student();
+            s.setId((long) i + 1);
+            s.setName("Student " + i);
+            s.setAge(11 + i % 7);
+            s.setFaculty(faculty);
+            students.add(s);
+        }
+        faculty.setStudents(students);
+        student = students.iterator().next();
+
+        byte[] preview = new byte[PREVIEW_BYTES];
+        new Random(42).nextBytes(preview);
+        avatar = new Avatar(1L, "/avatars/blobs/ab/cd/abcd", 120_000L, "image/jpeg", preview, student);
+        avatar.setPreviewStatus(PreviewStatus.READY);
+    }
+
+    @Benchmark
+    public byte[] student() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(student);
+    }
+
+    @Benchmark
+    public byte[] faculty() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(faculty);
+    }
+
+    @Benchmark
+    public byte[] avatar() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(avatar);
+    }
+}
@@ -0,0 +1,144 @@
+package ru.hogwarts.school.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the same closed-loop load (N clients, each sending the next request as soon as the previous
+ * one completes) against two running instances, typically the default platform-thread mode and the
+ * {@code virtual-threads} profile, and reports throughput and latency percentiles for both.
+ * Results are printed and written to {@code target/load-comparison.json}. The second instance needs
+ * a Java 21 runtime; a jar built with {@code -Pvirtual-threads} has virtual threads on without the profile.
+ * <pre>
+ * java -jar school/target/school-0.0.1-SNAPSHOT-exec.jar --server.port=8080
+ * java -jar school/target/school-0.0.1-SNAPSHOT-exec.jar --server.port=8081 --spring.profiles.active=virtual-threads
+ * java -cp school-benchmarks/target/benchmarks.jar ru.hogwarts.school.benchmarks.LoadComparison \
+ *     http://localhost:8080/avatar/1/avatar http://localhost:8081/avatar/1/avatar [clients] [seconds]
+ * </pre>
+ */
+public class LoadComparison {
+
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+
+    public record Result(String label, String url, int clients, long requests, long errors,
+                         double throughputPerSecond, double p50Millis, double p90Millis,
+                         double p99Millis, double maxMillis) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: LoadComparison <platform-url> <virtual-url> [clients] [seconds]");
+            System.exit(2);
+        }
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        Duration duration = Duration.ofSeconds(args.length > 3 ? Long.parseLong(args[3]) : 30);
+
+        List<Result> results = List.of(
+                run("platform", URI.create(args[0]), clients, duration),
+                run("virtual", URI.create(args[1]), clients, duration));
+
+        System.out.printf("%-10s %10s %8s %12s %10s %10s %10s %10s%n",
+                "mode", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (Result result : results) {
+            System.out.printf("%-10s %10d %8d %12.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    result.label(), result.requests(), result.errors(), result.throughputPerSecond(),
+                    result.p50Millis(), result.p90Millis(), result.p99Millis(), result.maxMillis());
+        }
+
+        Path output = Path.of("target", "load-comparison.json");
+        Files.createDirectories(output.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), results);
+        System.out.println("Results saved to " + output);
+    }
+
+    private static Result run(String label, URI uri, int clients, Duration duration) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        load(client, request, clients, WARMUP, new AtomicLong());
+
+        AtomicLong errors = new AtomicLong();
+        long[] latencies = load(client, request, clients, duration, errors);
+
+        Arrays.sort(latencies);
+        return new Result(label, uri.toString(), clients, latencies.length, errors.get(),
+                latencies.length / (double) duration.toSeconds(),
+                percentile(latencies, 0.50), percentile(latencies, 0.90),
+                percentile(latencies, 0.99), percentile(latencies, 1.0));
+    }
+
+    private static long[] load(HttpClient client, HttpRequest request, int clients, Duration duration,
+                               AtomicLong errors) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Recorder> recorders = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            Recorder recorder = new Recorder();
+            recorders.add(recorder);
+            Thread thread = new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 400) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    recorder.add(System.nanoTime() - start);
+                }
+            }, "load-client-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return recorders.stream()
+                .flatMapToLong(recorder -> Arrays.stream(recorder.values, 0, recorder.size))
+                .toArray();
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private static class Recorder {
+
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
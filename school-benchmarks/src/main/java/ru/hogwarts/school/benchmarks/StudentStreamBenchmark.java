@@ -0,0 +1,84 @@
+package ru.hogwarts.school.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repositories.StudentRepository;
+import ru.hogwarts.school.service.StudentService;
+import ru.hogwarts.school.service.StudentStatisticsService;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StudentService} stream computations over synthetic rosters. The repository is an
+ * in-memory stub returning what the database would (every age, or the "A%" names in order),
+ * so only the service-side work is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StudentStreamBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int rows;
+
+    private StudentService studentService;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<Student> students = new ArrayList<>(rows);
+        List<String> namesStartingWithA = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            Student student = new Student();
+            student.setId((long) i + 1);
+            student.setName((char) ('A' + random.nextInt(26)) + "student" + random.nextInt(1_000_000));
+            student.setAge(11 + random.nextInt(8));
+            students.add(student);
+            if (student.getName().startsWith("A")) {
+                namesStartingWithA.add(student.getName());
+            }
+        }
+        namesStartingWithA.sort(null);
+
+        StudentRepository studentRepository = stubRepository(students, namesStartingWithA);
+        studentService = new StudentService(studentRepository, new StudentStatisticsService(studentRepository), null);
+    }
+
+    @Benchmark
+    public Double averageAgeStream() {
+        return studentService.getAverageAgeStream();
+    }
+
+    @Benchmark
+    public List<String> namesStartingWithA() {
+        return studentService.getAllStudentsNameStartWithA();
+    }
+
+    private static StudentRepository stubRepository(List<Student> students, List<String> namesStartingWithA) {
+        return (StudentRepository) Proxy.newProxyInstance(
+                StudentRepository.class.getClassLoader(),
+                new Class<?>[]{StudentRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "streamAges" -> students.stream().map(Student::getAge);
+                    case "findNamesLike", "findNamesUpperLike" -> namesStartingWithA;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
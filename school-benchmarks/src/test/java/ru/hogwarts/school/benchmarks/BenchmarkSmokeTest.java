@@ -0,0 +1,35 @@
+package ru.hogwarts.school.benchmarks;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BenchmarkSmokeTest {
+
+    @Test
+    public void everyBenchmarkRunsOnceTest() throws Exception {
+        Options options = new OptionsBuilder()
+                .include("ru\\.hogwarts\\.school\\.benchmarks\\..*")
+                .mode(Mode.SingleShotTime)
+                .forks(0)
+                .warmupIterations(0)
+                .measurementIterations(1)
+                .param("rows", "1000")
+                .param("size", "320x240")
+                .shouldFailOnError(true)
+                .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+
+        assertThat(results).extracting(result -> result.getParams().getBenchmark())
+                .contains("ru.hogwarts.school.benchmarks.StudentStreamBenchmark.averageAgeStream",
+                        "ru.hogwarts.school.benchmarks.StudentStreamBenchmark.namesStartingWithA");
+    }
+}
@@ -0,0 +1,121 @@
+package ru.hogwarts.school.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.management.CacheStatisticsMXBean;
+import javax.management.JMX;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+@Configuration
+public class EntityCacheConfig {
+
+    private static final List<String> REGIONS = List.of("student", "faculty", "faculty.students");
+
+    @Value("${entity.cache.max-entries}")
+    private long maxEntries;
+
+    @Value("${entity.cache.time-to-live}")
+    private Duration timeToLive;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager() {
+        CacheConfiguration<Object, Object> regionConfiguration = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(timeToLive))
+                .build();
+
+        ConfigurationBuilder configuration = ConfigurationBuilder.newConfigurationBuilder();
+        for (String region : REGIONS) {
+            configuration = configuration.withCache(region, regionConfiguration);
+        }
+
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName());
+        // a private manager per context, so parallel test contexts never share or close each other's regions
+        return provider.getCacheManager(URI.create("urn:school:entity-cache:" + UUID.randomUUID()),
+                configuration.build());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(CacheManager entityCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    @Bean
+    public MeterBinder entityCacheMetrics(CacheManager entityCacheManager) {
+        return registry -> {
+            for (String region : REGIONS) {
+                CacheStatisticsMXBean statistics = statistics(entityCacheManager, region);
+                registerRequests(registry, entityCacheManager, region, "hit", statistics::getCacheHits);
+                registerRequests(registry, entityCacheManager, region, "miss", statistics::getCacheMisses);
+                FunctionCounter.builder("entity.cache.puts", entityCacheManager, m -> statistics.getCachePuts())
+                        .tag("region", region)
+                        .register(registry);
+                Gauge.builder("entity.cache.hit.ratio", entityCacheManager, m -> hitRatio(statistics))
+                        .tag("region", region)
+                        .register(registry);
+            }
+        };
+    }
+
+    // Ehcache keeps these counters regardless; enabling statistics only publishes them as an MXBean.
+    // Meters are bound to the manager, which outlives them, since they hold their state object weakly
+    private static CacheStatisticsMXBean statistics(CacheManager cacheManager, String region) {
+        cacheManager.enableStatistics(region, true);
+        try {
+            ObjectName name = new ObjectName("javax.cache:type=CacheStatistics"
+                    + ",CacheManager=" + sanitize(cacheManager.getURI().toString())
+                    + ",Cache=" + sanitize(region));
+            return JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(), name, CacheStatisticsMXBean.class);
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String sanitize(String value) {
+        return value.replaceAll("[,:=\\n]", ".");
+    }
+
+    private static void registerRequests(MeterRegistry registry,
+                                         CacheManager cacheManager,
+                                         String region,
+                                         String result,
+                                         LongSupplier count) {
+        FunctionCounter.builder("entity.cache.requests", cacheManager, m -> count.getAsLong())
+                .tag("region", region)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static double hitRatio(CacheStatisticsMXBean statistics) {
+        long hits = statistics.getCacheHits();
+        long requests = hits + statistics.getCacheMisses();
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
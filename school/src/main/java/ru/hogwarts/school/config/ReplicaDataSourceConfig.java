@@ -0,0 +1,96 @@
+package ru.hogwarts.school.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Active when {@code datasource.replica.urls} is set. The application datasource defers taking a
+ * physical connection until the first statement, so by then Spring knows whether the transaction is
+ * {@code readOnly}: read-only work goes to the replicas, everything else (and Liquibase) to the primary.
+ */
+@Configuration
+@ConditionalOnProperty("datasource.replica.urls")
+public class ReplicaDataSourceConfig {
+
+    @Value("${datasource.replica.urls}")
+    private List<String> replicaUrls;
+
+    @Value("${datasource.replica.username:${spring.datasource.username}}")
+    private String username;
+
+    @Value("${datasource.replica.password:${spring.datasource.password}}")
+    private String password;
+
+    @Value("${datasource.replica.connection-timeout:2s}")
+    private Duration connectionTimeout;
+
+    @Value("${datasource.replica.retry-after:30s}")
+    private Duration retryAfter;
+
+    private final List<HikariDataSource> replicas = new ArrayList<>();
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, MeterRegistry meterRegistry) {
+        Map<String, DataSource> targets = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = replica("replica-" + i, replicaUrls.get(i).trim(), primaryDataSource, meterRegistry);
+            replicas.add(replica);
+            targets.put(replica.getPoolName(), replica);
+        }
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(new ReplicaRoutingDataSource(primaryDataSource, targets, retryAfter, meterRegistry));
+        return dataSource;
+    }
+
+    @PreDestroy
+    public void closeReplicas() {
+        replicas.forEach(HikariDataSource::close);
+    }
+
+    private HikariDataSource replica(String name, String url, HikariDataSource primary, MeterRegistry meterRegistry) {
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        replica.setPoolName(name);
+        replica.setReadOnly(true);
+        replica.setMaximumPoolSize(primary.getMaximumPoolSize());
+        replica.setConnectionTimeout(connectionTimeout.toMillis());
+        // a replica that is down at startup must not stop the application, it is retried later
+        replica.setInitializationFailTimeout(-1);
+        replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return replica;
+    }
+}
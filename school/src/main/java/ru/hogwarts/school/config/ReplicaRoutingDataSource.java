@@ -0,0 +1,109 @@
+package ru.hogwarts.school.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out replica connections round-robin. A replica that fails to give a connection is skipped
+ * for {@code retryAfter} and the next one is tried; when no replica is available the connection
+ * comes from the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final List<Target> replicas = new ArrayList<>();
+    private final long retryAfterNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primarySuccess;
+    private final Counter primaryFailure;
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    Map<String, DataSource> replicas,
+                                    Duration retryAfter,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.retryAfterNanos = retryAfter.toNanos();
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Target(name, dataSource, meterRegistry)));
+        primarySuccess = connections(meterRegistry, "primary", "success");
+        primaryFailure = connections(meterRegistry, "primary", "failure");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int size = replicas.size();
+        int start = size == 0 ? 0 : Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Target replica = replicas.get((start + i) % size);
+            long now = System.nanoTime();
+            if (replica.down && now - replica.downSince < retryAfterNanos) {
+                continue;
+            }
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replica.down = false;
+                replica.success.increment();
+                return connection;
+            } catch (SQLException e) {
+                logger.warn("Replica {} is unavailable, skipping it for {} ms: {}",
+                        replica.name, retryAfterNanos / 1_000_000, e.getMessage());
+                replica.downSince = now;
+                replica.down = true;
+                replica.failure.increment();
+            }
+        }
+
+        logger.warn("No replica is available, read-only connection is taken from the primary");
+        try {
+            Connection connection = primary.getConnection();
+            primarySuccess.increment();
+            return connection;
+        } catch (SQLException e) {
+            primaryFailure.increment();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the configured credentials");
+    }
+
+    private static Counter connections(MeterRegistry meterRegistry, String target, String outcome) {
+        return Counter.builder("datasource.routing.connections")
+                .tag("target", target)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static class Target {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final Counter success;
+        private final Counter failure;
+        private volatile boolean down;
+        private volatile long downSince;
+
+        Target(String name, DataSource dataSource, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.success = connections(meterRegistry, name, "success");
+            this.failure = connections(meterRegistry, name, "failure");
+        }
+    }
+}
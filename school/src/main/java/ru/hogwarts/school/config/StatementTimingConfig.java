@@ -0,0 +1,30 @@
+package ru.hogwarts.school.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.hogwarts.school.metrics.SqlStatementStatistics;
+import ru.hogwarts.school.metrics.StatementTimingDataSource;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(value = "sql.timing.enabled", havingValue = "true")
+public class StatementTimingConfig {
+
+    @Bean
+    public static BeanPostProcessor statementTimingPostProcessor(ObjectProvider<SqlStatementStatistics> statistics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // only the application datasource, the pools behind it keep their own type for pool metrics
+                if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource) {
+                    return new StatementTimingDataSource(dataSource, statistics.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -1,29 +1,46 @@
 package ru.hogwarts.school.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import ru.hogwarts.school.dto.AvatarPreview;
 import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.PreviewStatus;
+import ru.hogwarts.school.service.AvatarRenditionService;
 import ru.hogwarts.school.service.AvatarService;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
 
 @RestController
 @RequestMapping("avatar")
 public class AvatarController {
 
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final AvatarService avatarService;
+    private final AvatarRenditionService avatarRenditionService;
 
-    public AvatarController(AvatarService avatarService) {
+    public AvatarController(AvatarService avatarService, AvatarRenditionService avatarRenditionService) {
         this.avatarService = avatarService;
+        this.avatarRenditionService = avatarRenditionService;
     }
 
     @PostMapping(value = "/{id}/avatar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -35,27 +52,147 @@ public class AvatarController {
 
     @GetMapping(value = "/{id}/avatar")
     public void downloadAvatar(@PathVariable Long id,
+                               HttpServletRequest request,
                                HttpServletResponse response) throws IOException {
         Avatar avatar = avatarService.findAvatar(id);
+        if (avatar.getFilePath() == null) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
         Path path = Path.of(avatar.getFilePath());
+        long lastModified;
+        try {
+            lastModified = Files.getLastModifiedTime(path).toMillis();
+        } catch (NoSuchFileException e) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
 
-        try (InputStream is = Files.newInputStream(path);
-             OutputStream os = response.getOutputStream()) {
-            response.setStatus(200);
-            response.setContentType(avatar.getMediaType());
-            response.setContentLength((int) avatar.getFileSize());
-            is.transferTo(os);
+        String eTag = getETag(avatar, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(eTag, lastModified)) {
+            return;
         }
+
+        long length = avatar.getFileSize();
+        long start = 0;
+        long end = length - 1;
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && isRangeApplicable(request, eTag, lastModified)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            if (ranges.size() == 1) {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+            }
+            if (ranges.isEmpty() || start >= length || start > end) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            if (ranges.size() == 1) {
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        response.setContentType(avatar.getMediaType());
+        response.setContentLengthLong(end - start + 1);
+        transferFile(path, start, end + 1, request, response);
     }
 
     @GetMapping(value = "/{id}/avatar/preview")
-    public ResponseEntity<byte[]> downloadAvatar(@PathVariable Long id) {
+    public ResponseEntity<byte[]> downloadAvatar(@PathVariable Long id,
+                                                 @RequestParam(required = false) Integer width) throws IOException {
+        if (width != null) {
+            return downloadRendition(id, width);
+        }
+
+        AvatarPreview preview = avatarService.findAvatarPreview(id);
+        if (preview == null || preview.previewStatus() == PreviewStatus.FAILED) {
+            return ResponseEntity.notFound().build();
+        }
+        if (preview.previewStatus() != PreviewStatus.READY) {
+            return ResponseEntity.accepted().header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(preview.mediaType()));
+        headers.setContentLength(preview.data().length);
+
+        return ResponseEntity.status(HttpStatus.OK).headers(headers).body(preview.data());
+    }
+
+    private ResponseEntity<byte[]> downloadRendition(Long id, int width) throws IOException {
+        if (!avatarRenditionService.isSupportedWidth(width)) {
+            return ResponseEntity.badRequest().build();
+        }
         Avatar avatar = avatarService.findAvatar(id);
+        if (avatar.getFilePath() == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        byte[] data;
+        try {
+            data = avatarRenditionService.getRendition(Path.of(avatar.getFilePath()), width);
+        } catch (NoSuchFileException e) {
+            return ResponseEntity.notFound().build();
+        }
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.parseMediaType(avatar.getMediaType()));
-        headers.setContentLength(avatar.getData().length);
+        headers.setContentLength(data.length);
+
+        return ResponseEntity.status(HttpStatus.OK).headers(headers).body(data);
+    }
+
+    private void transferFile(Path path, long start, long end,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             WritableByteChannel out = Channels.newChannel(response.getOutputStream())) {
+            long position = start;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    private boolean isRangeApplicable(HttpServletRequest request, String eTag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(eTag);
+        }
+        try {
+            long ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return ifRangeDate != -1 && lastModified / 1000 <= ifRangeDate / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
 
-        return ResponseEntity.status(HttpStatus.OK).headers(headers).body(avatar.getData());
+    private String getETag(Avatar avatar, long lastModified) {
+        return "\"" + Integer.toHexString(avatar.getFilePath().hashCode())
+                + "-" + Long.toHexString(avatar.getFileSize())
+                + "-" + Long.toHexString(lastModified) + "\"";
     }
 }
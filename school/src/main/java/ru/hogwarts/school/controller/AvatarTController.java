@@ -5,7 +5,8 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.dto.AvatarSummary;
+import ru.hogwarts.school.dto.CursorPage;
 import ru.hogwarts.school.service.AvatarService;
 
 import java.util.List;
@@ -21,12 +22,25 @@ public class AvatarTController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Avatar>> getAllAvatars(@RequestParam("page") int pageNumber,
-                                                      @RequestParam("size") int pageSize) {
-        List<Avatar> avatars = avatarService.getAllAvatars(pageNumber, pageSize);
+    public ResponseEntity<List<AvatarSummary>> getAllAvatars(@RequestParam("page") int pageNumber,
+                                                             @RequestParam("size") int pageSize) {
+        List<AvatarSummary> avatars = avatarService.getAllAvatars(pageNumber, pageSize);
         if (avatars == null) {
             return ResponseEntity.notFound().build();
         }
         return ResponseEntity.ok(avatars);
     }
+
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPage<AvatarSummary>> getAvatarsAfter(@RequestParam(required = false) String after,
+                                                                     @RequestParam int limit) {
+        if (limit <= 0 || limit > CursorPage.MAX_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(avatarService.getAvatarsAfter(after, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 }
@@ -4,12 +4,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.hogwarts.school.dto.FacultyVersion;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.service.AggregationEngine;
 import ru.hogwarts.school.service.FacultyService;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -25,7 +31,14 @@ public class FacultyController {
     }
 
     @GetMapping("{id}")
-    public ResponseEntity<Faculty> findFaculty(@PathVariable Long id) {
+    public ResponseEntity<Faculty> findFaculty(@PathVariable Long id, WebRequest request) {
+        List<FacultyVersion> versions = facultyService.findFacultyVersions(id);
+        if (versions.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(versionsETag(versions))) {
+            return null;
+        }
         Faculty faculty = facultyService.findFaculty(id);
         if (faculty == null) {
             return ResponseEntity.notFound().build();
@@ -62,21 +75,66 @@ public class FacultyController {
     }
 
     @GetMapping("{id}/student")
-    public ResponseEntity<Collection<Student>> getStudentsByFaculty(@PathVariable Long id) {
-        Faculty foundFaculty = facultyService.findFaculty(id);
-        if (foundFaculty == null) {
+    public ResponseEntity<Collection<Student>> getStudentsByFaculty(@PathVariable Long id, WebRequest request) {
+        List<Student> students = facultyService.findFacultyStudents(id);
+        if (students == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(foundFaculty.getStudents());
+        if (request.checkNotModified(studentsETag(students))) {
+            return null;
+        }
+        return ResponseEntity.ok(students);
     }
 
     @GetMapping("loggest-faculty-name")
     public ResponseEntity<String> findLoggestFacultyName() {
-        return ResponseEntity.ok(facultyService.findLoggestFacultyName());
+        String name = facultyService.findLoggestFacultyName();
+        if (name == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(name);
+    }
+
+    @GetMapping("longest-names")
+    public ResponseEntity<List<String>> findLongestFacultyNames(@RequestParam(defaultValue = "5") int limit) {
+        List<String> names = facultyService.findLongestFacultyNames(limit);
+        if (names == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(names);
     }
 
     @GetMapping("smth-idk")
-    public ResponseEntity<Integer> getSmthIdk() {
-        return ResponseEntity.ok(facultyService.getSmthIdk());
+    public ResponseEntity<Long> getSmthIdk(@RequestParam(defaultValue = "1000000") long bound,
+                                           @RequestParam(defaultValue = "closed-form") String strategy) {
+        AggregationEngine.Strategy aggregationStrategy = AggregationEngine.Strategy.parse(strategy);
+        if (aggregationStrategy == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        Long sum = facultyService.getSmthIdk(bound, aggregationStrategy);
+        if (sum == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(sum);
+    }
+
+    // the faculty version alone does not change when its students do, so their (id, version) pairs are hashed in
+    private static String versionsETag(List<FacultyVersion> versions) {
+        ByteBuffer buffer = ByteBuffer.allocate((versions.size() * 2 + 1) * Long.BYTES);
+        buffer.putLong(versions.get(0).facultyVersion());
+        for (FacultyVersion version : versions) {
+            if (version.studentId() != null) {
+                buffer.putLong(version.studentId()).putLong(version.studentVersion());
+            }
+        }
+        return DigestUtils.md5DigestAsHex(Arrays.copyOf(buffer.array(), buffer.position()));
+    }
+
+    private static String studentsETag(List<Student> students) {
+        ByteBuffer buffer = ByteBuffer.allocate(students.size() * 2 * Long.BYTES);
+        for (Student student : students) {
+            buffer.putLong(student.getId()).putLong(student.getVersion());
+        }
+        return DigestUtils.md5DigestAsHex(buffer.array());
     }
 }
@@ -1,26 +1,64 @@
 package ru.hogwarts.school.controller;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.hogwarts.school.dto.BatchImportResult;
+import ru.hogwarts.school.dto.CursorPage;
+import ru.hogwarts.school.dto.StudentImportRow;
+import ru.hogwarts.school.dto.StudentStatistics;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.service.StudentExportService;
+import ru.hogwarts.school.service.StudentImportService;
 import ru.hogwarts.school.service.StudentService;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("student")
 public class StudentController {
 
+    @Value("${student.export.timeout}")
+    private Duration exportTimeout;
+
     private final StudentService studentService;
+    private final StudentExportService studentExportService;
+    private final StudentImportService studentImportService;
 
-    public StudentController(StudentService studentService) {
+    public StudentController(StudentService studentService,
+                             StudentExportService studentExportService,
+                             StudentImportService studentImportService) {
         this.studentService = studentService;
+        this.studentExportService = studentExportService;
+        this.studentImportService = studentImportService;
     }
 
     @GetMapping("{id}")
-    public ResponseEntity<Student> getStudent(@PathVariable Long id) {
+    public ResponseEntity<Student> getStudent(@PathVariable Long id, WebRequest request) {
+        Long version = studentService.findStudentVersion(id);
+        if (version == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(version.toString())) {
+            return null;
+        }
         Student student = studentService.findStudent(id);
         if (student == null) {
             return ResponseEntity.notFound().build();
@@ -28,11 +66,34 @@ public class StudentController {
         return ResponseEntity.ok(student);
     }
 
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPage<Student>> getStudentsAfter(@RequestParam(required = false) String after,
+                                                                @RequestParam int limit) {
+        if (limit <= 0 || limit > CursorPage.MAX_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(studentService.getStudentsAfter(after, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PostMapping
     public Student createStudent(@RequestBody Student student) {
         return studentService.createStudent(student);
     }
 
+    @PostMapping(value = "batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchImportResult> importStudents(@RequestBody List<StudentImportRow> students) {
+        return ResponseEntity.ok(studentImportService.importStudents(students));
+    }
+
+    @PostMapping(value = "batch", consumes = "text/csv")
+    public ResponseEntity<BatchImportResult> importStudentsCsv(Reader reader) throws IOException {
+        return ResponseEntity.ok(studentImportService.importStudentsCsv(reader));
+    }
+
     @PutMapping("{id}")
     public ResponseEntity<Student> editStudent(@PathVariable Long id, @RequestBody Student student) {
         Student foundStudent = studentService.editStudent(id, student);
@@ -48,6 +109,31 @@ public class StudentController {
         return ResponseEntity.ok().build();
     }
 
+    @GetMapping("export")
+    public ResponseEntity<StreamingResponseBody> exportStudents(@RequestParam(defaultValue = "ndjson") String format,
+                                                                WebRequest request) {
+        StudentExportService.Format exportFormat = StudentExportService.Format.parse(format);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // only the export may stream for this long, other async requests keep the default timeout
+        AsyncWebRequest asyncRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asyncRequest != null) {
+            asyncRequest.setTimeout(exportTimeout.toMillis());
+        }
+
+        MediaType mediaType = exportFormat == StudentExportService.Format.CSV
+                ? MediaType.parseMediaType("text/csv")
+                : MediaType.APPLICATION_NDJSON;
+        String fileName = "students." + exportFormat.name().toLowerCase();
+
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName)
+                .body(out -> studentExportService.export(exportFormat, out));
+    }
+
     @GetMapping("age/{age}")
     public ResponseEntity<Collection<Student>> findStudentByAge(@PathVariable int age) {
         return ResponseEntity.ok(studentService.findStudentByAge(age));
@@ -63,7 +149,7 @@ public class StudentController {
 
     @GetMapping("{id}/faculty")
     public ResponseEntity<Faculty> getFacultyByStudent(@PathVariable Long id) {
-        Student foundStudent = studentService.findStudent(id);
+        Student foundStudent = studentService.findStudentWithFaculty(id);
         if (foundStudent == null) {
             return ResponseEntity.notFound().build();
         }
@@ -80,6 +166,16 @@ public class StudentController {
         return ResponseEntity.ok(studentService.getAverageAge());
     }
 
+    @GetMapping("statistics")
+    public ResponseEntity<StudentStatistics> getStatistics() {
+        return ResponseEntity.ok(studentService.getStatistics());
+    }
+
+    @PostMapping("statistics/rebuild")
+    public ResponseEntity<StudentStatistics> rebuildStatistics() {
+        return ResponseEntity.ok(studentService.rebuildStatistics());
+    }
+
     @GetMapping("five-last-students")
     public ResponseEntity<List<Student>> getFiveLastStudents() {
         return ResponseEntity.ok(studentService.getFiveLastStudents());
@@ -90,20 +186,40 @@ public class StudentController {
         return ResponseEntity.ok(studentService.getAllStudentsNameStartWithA());
     }
 
+    @GetMapping("names")
+    public ResponseEntity<List<String>> findNamesByPrefix(@RequestParam String prefix,
+                                                          @RequestParam(defaultValue = "false") boolean ignoreCase,
+                                                          @RequestParam(defaultValue = "ASC") Sort.Direction direction) {
+        if (prefix.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(studentService.findNamesByPrefix(prefix, ignoreCase, direction));
+    }
+
     @GetMapping("average-age-stream")
     public ResponseEntity<Double> getAverageAgeStream() {
         return ResponseEntity.ok(studentService.getAverageAgeStream());
     }
 
     @GetMapping("print-parallel")
-    public ResponseEntity<Void> printNameParallel() {
-        studentService.printNameParallel();
-        return ResponseEntity.ok().build();
+    public CompletableFuture<ResponseEntity<Void>> printNameParallel() {
+        return toResponse(studentService.printNameParallel());
     }
 
     @GetMapping("print-synchronized")
-    public ResponseEntity<Void> printNameSynchronized() {
-        studentService.printNameSynchronized();
-        return ResponseEntity.ok().build();
+    public CompletableFuture<ResponseEntity<Void>> printNameSynchronized() {
+        return toResponse(studentService.printNameSynchronized());
+    }
+
+    private CompletableFuture<ResponseEntity<Void>> toResponse(CompletableFuture<Void> job) {
+        return job.handle((result, e) -> {
+            if (e == null) {
+                return ResponseEntity.ok().build();
+            }
+            if (NestedExceptionUtils.getMostSpecificCause(e) instanceof RejectedExecutionException) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+            throw e instanceof CompletionException completionException ? completionException : new CompletionException(e);
+        });
     }
 }
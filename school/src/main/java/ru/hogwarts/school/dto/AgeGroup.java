@@ -0,0 +1,4 @@
+package ru.hogwarts.school.dto;
+
+public record AgeGroup(Long facultyId, int age, long count) {
+}
@@ -0,0 +1,4 @@
+package ru.hogwarts.school.dto;
+
+public record AgeStatistics(long count, Double averageAge, Integer minAge, Integer maxAge) {
+}
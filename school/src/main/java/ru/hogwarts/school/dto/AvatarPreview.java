@@ -0,0 +1,6 @@
+package ru.hogwarts.school.dto;
+
+import ru.hogwarts.school.model.PreviewStatus;
+
+public record AvatarPreview(String mediaType, PreviewStatus previewStatus, byte[] data) {
+}
@@ -0,0 +1,15 @@
+package ru.hogwarts.school.dto;
+
+public record AvatarSummary(long id,
+                            Long studentId,
+                            String mediaType,
+                            long fileSize,
+                            String previewUrl,
+                            String downloadUrl) {
+
+    public AvatarSummary(long id, Long studentId, String mediaType, long fileSize) {
+        this(id, studentId, mediaType, fileSize,
+                "/avatar/" + studentId + "/avatar/preview",
+                "/avatar/" + studentId + "/avatar");
+    }
+}
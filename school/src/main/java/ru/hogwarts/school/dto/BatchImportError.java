@@ -0,0 +1,4 @@
+package ru.hogwarts.school.dto;
+
+public record BatchImportError(int row, String message) {
+}
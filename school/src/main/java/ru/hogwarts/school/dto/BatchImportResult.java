@@ -0,0 +1,6 @@
+package ru.hogwarts.school.dto;
+
+import java.util.List;
+
+public record BatchImportResult(int imported, List<BatchImportError> errors) {
+}
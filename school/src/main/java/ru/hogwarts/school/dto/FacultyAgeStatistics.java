@@ -0,0 +1,4 @@
+package ru.hogwarts.school.dto;
+
+public record FacultyAgeStatistics(Long facultyId, AgeStatistics statistics) {
+}
@@ -0,0 +1,4 @@
+package ru.hogwarts.school.dto;
+
+public record FacultyVersion(long facultyVersion, Long studentId, Long studentVersion) {
+}
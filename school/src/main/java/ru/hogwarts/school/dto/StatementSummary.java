@@ -0,0 +1,13 @@
+package ru.hogwarts.school.dto;
+
+public record StatementSummary(String id,
+                               String fingerprint,
+                               String caller,
+                               long count,
+                               double totalMillis,
+                               double meanMillis,
+                               double maxMillis,
+                               Double p50Millis,
+                               Double p95Millis,
+                               Double p99Millis) {
+}
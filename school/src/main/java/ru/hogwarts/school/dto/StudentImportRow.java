@@ -0,0 +1,4 @@
+package ru.hogwarts.school.dto;
+
+public record StudentImportRow(String name, int age, Long facultyId) {
+}
@@ -0,0 +1,169 @@
+package ru.hogwarts.school.metrics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Method;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+// header, method name table (length + UTF-8), then a ring of records: sequence, epoch millis,
+// duration nanos, method id, outcome. The sequence is cleared while a record is being rewritten.
+@Component
+public class InvocationJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvocationJournal.class);
+
+    static final int MAGIC = 0x534A524E;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int METHOD_SLOTS = 1024;
+    static final int METHOD_SLOT_SIZE = 96;
+    static final int RECORD_SIZE = 32;
+    static final int RECORDS_OFFSET = HEADER_SIZE + METHOD_SLOTS * METHOD_SLOT_SIZE;
+
+    static final int OUTCOME_SUCCESS = 0;
+    static final int OUTCOME_ERROR = 1;
+
+    static final String PID_PLACEHOLDER = "{pid}";
+
+    static final VarHandle LONG_HANDLE = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    @Value("${invocation.journal.enabled}")
+    private boolean enabled;
+
+    @Value("${invocation.journal.path}")
+    private Path path;
+
+    @Value("${invocation.journal.capacity}")
+    private int capacity;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Method, Integer> methodIds = new ConcurrentHashMap<>();
+    private int nextMethodId;
+    private Path file;
+    private MappedByteBuffer buffer;
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        // every instance sharing the directory gets its own file, truncating only a stale one of a reused pid
+        file = Path.of(path.toString().replace(PID_PLACEHOLDER, String.valueOf(ProcessHandle.current().pid())));
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        deleteJournalsOfExitedProcesses();
+        try (FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE, TRUNCATE_EXISTING)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, RECORDS_OFFSET + (long) capacity * RECORD_SIZE);
+        }
+        logger.info("Invocation journal is written to {}", file);
+        buffer.putInt(0, MAGIC)
+                .putInt(4, VERSION)
+                .putInt(8, RECORD_SIZE)
+                .putInt(12, capacity)
+                .putInt(16, METHOD_SLOTS)
+                .putInt(20, METHOD_SLOT_SIZE);
+    }
+
+    // a journal outlives its process for post-mortem reading until the next instance starts
+    private void deleteJournalsOfExitedProcesses() throws IOException {
+        String pattern = path.getFileName().toString();
+        int placeholder = pattern.indexOf(PID_PLACEHOLDER);
+        if (placeholder < 0) {
+            return;
+        }
+        String prefix = pattern.substring(0, placeholder);
+        String suffix = pattern.substring(placeholder + PID_PLACEHOLDER.length());
+        try (DirectoryStream<Path> journals = Files.newDirectoryStream(file.toAbsolutePath().getParent(), prefix + "*" + suffix)) {
+            for (Path journal : journals) {
+                String name = journal.getFileName().toString();
+                if (name.length() <= prefix.length() + suffix.length()) {
+                    continue;
+                }
+                String pid = name.substring(prefix.length(), name.length() - suffix.length());
+                if (pid.chars().allMatch(Character::isDigit) && ProcessHandle.of(Long.parseLong(pid)).isEmpty()) {
+                    Files.deleteIfExists(journal);
+                    logger.info("Deleted invocation journal {} of exited process {}", journal, pid);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    public boolean isEnabled() {
+        return buffer != null;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public void record(Method method, long timestamp, long durationNanos, boolean success) {
+        if (buffer == null) {
+            return;
+        }
+        int methodId = methodId(method);
+        long seq = sequence.incrementAndGet();
+        int offset = RECORDS_OFFSET + (int) ((seq - 1) % capacity) * RECORD_SIZE;
+
+        LONG_HANDLE.setRelease(buffer, offset, 0L);
+        // the cleared sequence must be visible before any field of the new record
+        VarHandle.storeStoreFence();
+        buffer.putLong(offset + 8, timestamp)
+                .putLong(offset + 16, durationNanos)
+                .putInt(offset + 24, methodId)
+                .putInt(offset + 28, success ? OUTCOME_SUCCESS : OUTCOME_ERROR);
+        LONG_HANDLE.setRelease(buffer, offset, seq);
+    }
+
+    private int methodId(Method method) {
+        Integer id = methodIds.get(method);
+        return id != null ? id : register(method);
+    }
+
+    private synchronized int register(Method method) {
+        Integer id = methodIds.get(method);
+        if (id != null) {
+            return id;
+        }
+        int newId = nextMethodId < METHOD_SLOTS ? nextMethodId++ : -1;
+        if (newId >= 0) {
+            byte[] name = (method.getDeclaringClass().getSimpleName() + "." + method.getName())
+                    .getBytes(StandardCharsets.UTF_8);
+            int length = Math.min(name.length, METHOD_SLOT_SIZE - 2);
+            int offset = HEADER_SIZE + newId * METHOD_SLOT_SIZE;
+            buffer.put(offset + 2, name, 0, length);
+            buffer.putShort(offset, (short) length);
+        }
+        methodIds.put(method, newId);
+        return newId;
+    }
+}
@@ -0,0 +1,90 @@
+package ru.hogwarts.school.metrics;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static ru.hogwarts.school.metrics.InvocationJournal.HEADER_SIZE;
+import static ru.hogwarts.school.metrics.InvocationJournal.LONG_HANDLE;
+import static ru.hogwarts.school.metrics.InvocationJournal.MAGIC;
+import static ru.hogwarts.school.metrics.InvocationJournal.OUTCOME_SUCCESS;
+import static ru.hogwarts.school.metrics.InvocationJournal.RECORDS_OFFSET;
+import static ru.hogwarts.school.metrics.InvocationJournal.VERSION;
+
+public class InvocationJournalReader {
+
+    public record Entry(long sequence, Instant timestamp, String method, long durationNanos, boolean success) {
+
+        @Override
+        public String toString() {
+            return String.format("%s %s %.3f ms %s", timestamp, method, durationNanos / 1_000_000.0,
+                    success ? "success" : "error");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: InvocationJournalReader <journal-file>");
+            System.exit(2);
+        }
+        print(Path.of(args[0]), System.out);
+    }
+
+    public static void print(Path path, PrintStream out) throws IOException {
+        read(path).forEach(out::println);
+    }
+
+    public static List<Entry> read(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not an invocation journal: " + path);
+        }
+        int recordSize = buffer.getInt(8);
+        int capacity = buffer.getInt(12);
+        int methodSlots = buffer.getInt(16);
+        int methodSlotSize = buffer.getInt(20);
+
+        String[] methods = new String[methodSlots];
+        for (int i = 0; i < methodSlots; i++) {
+            int offset = HEADER_SIZE + i * methodSlotSize;
+            byte[] name = new byte[buffer.getShort(offset)];
+            buffer.get(offset + 2, name);
+            methods[i] = new String(name, StandardCharsets.UTF_8);
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < capacity; i++) {
+            int offset = RECORDS_OFFSET + i * recordSize;
+            long seq = (long) LONG_HANDLE.getAcquire(buffer, offset);
+            if (seq == 0) {
+                continue;
+            }
+            long timestamp = buffer.getLong(offset + 8);
+            long duration = buffer.getLong(offset + 16);
+            int methodId = buffer.getInt(offset + 24);
+            int outcome = buffer.getInt(offset + 28);
+            // the fields must be read before the sequence is checked again
+            VarHandle.loadLoadFence();
+            if ((long) LONG_HANDLE.getAcquire(buffer, offset) != seq) {
+                continue;
+            }
+            String method = methodId >= 0 && methodId < methodSlots && !methods[methodId].isEmpty()
+                    ? methods[methodId]
+                    : "method#" + methodId;
+            entries.add(new Entry(seq, Instant.ofEpochMilli(timestamp), method, duration, outcome == OUTCOME_SUCCESS));
+        }
+        entries.sort(Comparator.comparingLong(Entry::sequence));
+        return entries;
+    }
+}
@@ -0,0 +1,46 @@
+package ru.hogwarts.school.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final InvocationJournal invocationJournal;
+
+    public ServiceMetricsAspect(MeterRegistry meterRegistry, InvocationJournal invocationJournal) {
+        this.meterRegistry = meterRegistry;
+        this.invocationJournal = invocationJournal;
+    }
+
+    // @Service entry points only, the helpers they call are already inside the caller's timing
+    @Around("@within(org.springframework.stereotype.Service) && execution(public * *(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = "error";
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            long duration = sample.stop(Timer.builder("school.service.invocations")
+                    .tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+            invocationJournal.record(((MethodSignature) joinPoint.getSignature()).getMethod(),
+                    System.currentTimeMillis(), duration, "success".equals(outcome));
+        }
+    }
+}
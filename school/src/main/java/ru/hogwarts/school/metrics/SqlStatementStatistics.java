@@ -0,0 +1,163 @@
+package ru.hogwarts.school.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.hogwarts.school.dto.StatementSummary;
+import ru.hogwarts.school.repositories.StudentRepository;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+@Component
+public class SqlStatementStatistics {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatementStatistics.class);
+
+    private static final String OTHER = "other";
+    private static final String UNKNOWN_CALLER = "unknown";
+    private static final String REPOSITORY_PACKAGE = StudentRepository.class.getPackageName();
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w$])-?\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Value("${sql.timing.slow-threshold}")
+    private Duration slowThreshold;
+
+    @Value("${sql.timing.max-fingerprints}")
+    private int maxFingerprints;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public SqlStatementStatistics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void record(String sql, long nanos, Supplier<String> parameterTypes) {
+        if (sql == null) {
+            return;
+        }
+        String fingerprint = fingerprints.get(sql);
+        if (fingerprint == null) {
+            fingerprint = fingerprint(sql);
+            if (fingerprints.size() < maxFingerprints * 4) {
+                fingerprints.put(sql, fingerprint);
+            }
+        }
+
+        Entry entry = entries.get(fingerprint);
+        if (entry == null) {
+            String key = entries.size() < maxFingerprints ? fingerprint : OTHER;
+            entry = entries.computeIfAbsent(key, this::newEntry);
+        }
+        entry.timer.record(nanos, TimeUnit.NANOSECONDS);
+
+        if (nanos >= slowThreshold.toNanos()) {
+            logger.warn("Slow statement took {} ms, parameters {}, called from {}: {}",
+                    TimeUnit.NANOSECONDS.toMillis(nanos), parameterTypes.get(), caller(), sql);
+        }
+    }
+
+    public List<StatementSummary> top(int limit) {
+        return entries.values().stream()
+                .map(Entry::summary)
+                .sorted(Comparator.comparingDouble(StatementSummary::totalMillis).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Replaces literals with {@code ?}, collapses {@code IN (?, ?, ...)} lists and whitespace, so that
+     * executions differing only in values or in the number of ids share one fingerprint.
+     */
+    public static String fingerprint(String sql) {
+        String result = STRING_LITERAL.matcher(sql).replaceAll("?");
+        result = NUMBER_LITERAL.matcher(result).replaceAll("?");
+        result = IN_LIST.matcher(result).replaceAll("in (?)");
+        return WHITESPACE.matcher(result).replaceAll(" ").trim();
+    }
+
+    private Entry newEntry(String fingerprint) {
+        String id = OTHER.equals(fingerprint) ? OTHER : id(fingerprint);
+        Timer timer = Timer.builder("jdbc.statement.duration")
+                .tag("statement", id)
+                .register(meterRegistry);
+        return new Entry(id, fingerprint, OTHER.equals(fingerprint) ? UNKNOWN_CALLER : caller(), timer);
+    }
+
+    private static String id(String fingerprint) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(fingerprint.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String caller() {
+        return StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE)
+                .walk(frames -> frames
+                        .map(SqlStatementStatistics::repositoryMethod)
+                        .flatMap(Optional::stream)
+                        .findFirst())
+                .orElse(UNKNOWN_CALLER);
+    }
+
+    private static Optional<String> repositoryMethod(StackWalker.StackFrame frame) {
+        Class<?> type = frame.getDeclaringClass();
+        if (type.getPackageName().equals(REPOSITORY_PACKAGE)) {
+            return Optional.of(type.getSimpleName() + "." + frame.getMethodName());
+        }
+        if (Proxy.isProxyClass(type)) {
+            return Arrays.stream(type.getInterfaces())
+                    .filter(i -> i.getPackageName().equals(REPOSITORY_PACKAGE))
+                    .findFirst()
+                    .map(i -> i.getSimpleName() + "." + frame.getMethodName());
+        }
+        return Optional.empty();
+    }
+
+    private record Entry(String id, String fingerprint, String caller, Timer timer) {
+
+        StatementSummary summary() {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            return new StatementSummary(id, fingerprint, caller, snapshot.count(),
+                    snapshot.total(TimeUnit.MILLISECONDS),
+                    snapshot.mean(TimeUnit.MILLISECONDS),
+                    snapshot.max(TimeUnit.MILLISECONDS),
+                    percentile(snapshot, 0.5), percentile(snapshot, 0.95), percentile(snapshot, 0.99));
+        }
+
+        private static Double percentile(HistogramSnapshot snapshot, double percentile) {
+            for (ValueAtPercentile value : snapshot.percentileValues()) {
+                if (value.percentile() == percentile) {
+                    return value.value(TimeUnit.MILLISECONDS);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package ru.hogwarts.school.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import ru.hogwarts.school.dto.StatementSummary;
+
+import java.util.List;
+
+@Component
+@Endpoint(id = "sqlstatements")
+public class SqlStatementsEndpoint {
+
+    @Value("${sql.timing.top}")
+    private int defaultLimit;
+
+    private final SqlStatementStatistics statistics;
+
+    public SqlStatementsEndpoint(SqlStatementStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @ReadOperation
+    public List<StatementSummary> top(@Nullable Integer limit) {
+        return statistics.top(limit == null || limit <= 0 ? defaultLimit : limit);
+    }
+}
@@ -0,0 +1,131 @@
+package ru.hogwarts.school.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hands out connections whose statements report every execution to {@link SqlStatementStatistics}
+ * with the SQL, the elapsed time and the types of the bound parameters. Only the execute call is
+ * timed, rows fetched later from a streamed result set are not.
+ */
+public class StatementTimingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private final SqlStatementStatistics statistics;
+
+    public StatementTimingDataSource(DataSource target, SqlStatementStatistics statistics) {
+        super(target);
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = identity(proxy, method, args);
+            if (result != null) {
+                return result;
+            }
+            result = invoke(connection, method, args);
+            if (result instanceof Statement statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                return proxy(method.getReturnType(), new StatementHandler(statement, sql));
+            }
+            return result;
+        });
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final List<Class<?>> parameters = new ArrayList<>();
+        private String sql;
+
+        StatementHandler(Statement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object identity = identity(proxy, method, args);
+            if (identity != null) {
+                return identity;
+            }
+
+            String name = method.getName();
+            if (EXECUTE_METHODS.contains(name)) {
+                String executed = args != null && args.length > 0 && args[0] instanceof String s ? s : sql;
+                long start = System.nanoTime();
+                try {
+                    return StatementTimingDataSource.invoke(target, method, args);
+                } finally {
+                    statistics.record(executed, System.nanoTime() - start, this::parameterTypes);
+                }
+            }
+
+            if (method.getDeclaringClass() == PreparedStatement.class && name.startsWith("set")
+                    && args.length >= 2 && args[0] instanceof Integer index) {
+                while (parameters.size() < index) {
+                    parameters.add(null);
+                }
+                parameters.set(index - 1, "setNull".equals(name) || args[1] == null ? null : args[1].getClass());
+            } else if ("clearParameters".equals(name)) {
+                parameters.clear();
+            } else if ("addBatch".equals(name) && args != null && args.length == 1) {
+                sql = (String) args[0];
+            }
+            return StatementTimingDataSource.invoke(target, method, args);
+        }
+
+        private String parameterTypes() {
+            return parameters.stream()
+                    .map(type -> type == null ? "null" : type.getSimpleName())
+                    .toList()
+                    .toString();
+        }
+    }
+
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "equals" -> args.length == 1 ? proxy == args[0] : null;
+            case "hashCode" -> method.getParameterCount() == 0 ? System.identityHashCode(proxy) : null;
+            default -> null;
+        };
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StatementTimingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
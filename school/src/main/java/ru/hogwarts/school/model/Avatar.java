@@ -14,9 +14,13 @@ public class Avatar {
     private String mediaType;
 
     @Lob
+    @Basic(fetch = FetchType.LAZY)
     private byte[] data;
 
-    @OneToOne
+    @Enumerated(EnumType.STRING)
+    private PreviewStatus previewStatus;
+
+    @OneToOne(fetch = FetchType.LAZY)
     private Student student;
 
     public Avatar(long id, String filePath, long fileSize, String mediaType, byte[] data, Student student) {
@@ -72,6 +76,14 @@ public class Avatar {
         this.data = data;
     }
 
+    public PreviewStatus getPreviewStatus() {
+        return previewStatus;
+    }
+
+    public void setPreviewStatus(PreviewStatus previewStatus) {
+        this.previewStatus = previewStatus;
+    }
+
     public Student getStudent() {
         return student;
     }
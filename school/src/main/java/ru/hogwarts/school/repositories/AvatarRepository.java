@@ -1,12 +1,47 @@
 package ru.hogwarts.school.repositories;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hogwarts.school.dto.AvatarPreview;
+import ru.hogwarts.school.dto.AvatarSummary;
 import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.PreviewStatus;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface AvatarRepository extends JpaRepository<Avatar, Long> {
 
     Optional<Avatar> findByStudentId(Long studentId);
 
+    @Query("SELECT new ru.hogwarts.school.dto.AvatarSummary(a.id, a.student.id, a.mediaType, a.fileSize) " +
+            "FROM Avatar a ORDER BY a.id")
+    List<AvatarSummary> findAllSummaries(Pageable pageable);
+
+    @Query("SELECT new ru.hogwarts.school.dto.AvatarSummary(a.id, a.student.id, a.mediaType, a.fileSize) " +
+            "FROM Avatar a WHERE a.id > :afterId ORDER BY a.id")
+    List<AvatarSummary> findSummariesAfter(@Param("afterId") long afterId, Limit limit);
+
+    @Query("SELECT new ru.hogwarts.school.dto.AvatarPreview(a.mediaType, a.previewStatus, a.data) " +
+            "FROM Avatar a WHERE a.student.id = :studentId")
+    Optional<AvatarPreview> findPreviewByStudentId(@Param("studentId") Long studentId);
+
+    List<Avatar> findByPreviewStatusOrderById(PreviewStatus previewStatus, Limit limit);
+
+    boolean existsByFilePath(String filePath);
+
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("UPDATE Avatar a SET a.data = :data, a.previewStatus = :status WHERE a.id = :id AND a.filePath = :filePath")
+    int updatePreview(@Param("id") long id,
+                      @Param("filePath") String filePath,
+                      @Param("data") byte[] data,
+                      @Param("status") PreviewStatus status);
+
 }
@@ -0,0 +1,11 @@
+package ru.hogwarts.school.repositories;
+
+import ru.hogwarts.school.model.Faculty;
+
+import java.util.List;
+
+public interface FacultyMultiLoadRepository {
+
+    List<Faculty> findAllById(Iterable<Long> ids);
+
+}
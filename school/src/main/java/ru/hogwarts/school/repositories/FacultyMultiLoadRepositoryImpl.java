@@ -0,0 +1,34 @@
+package ru.hogwarts.school.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import ru.hogwarts.school.model.Faculty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+public class FacultyMultiLoadRepositoryImpl implements FacultyMultiLoadRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // unlike the default IN query, a multi-load takes what it can from the second-level cache
+    // and fetches only the misses, in a single statement
+    @Override
+    public List<Faculty> findAllById(Iterable<Long> ids) {
+        List<Long> idList = new ArrayList<>();
+        ids.forEach(idList::add);
+        return entityManager.unwrap(Session.class)
+                .byMultipleIds(Faculty.class)
+                .with(CacheMode.NORMAL)
+                .enableSessionCheck(true)
+                .enableOrderedReturn(true)
+                .multiLoad(idList)
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
@@ -1,12 +1,31 @@
 package ru.hogwarts.school.repositories;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.hogwarts.school.dto.FacultyVersion;
 import ru.hogwarts.school.model.Faculty;
 
-import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
-public interface FacultyRepository extends JpaRepository<Faculty, Long> {
+public interface FacultyRepository extends JpaRepository<Faculty, Long>, FacultyMultiLoadRepository {
 
-    Collection<Faculty> findByColorIgnoreCaseOrNameIgnoreCase(String color, String name);
+    @Query(value = "SELECT * FROM faculty WHERE upper(color) = upper(:color) " +
+            "UNION " +
+            "SELECT * FROM faculty WHERE upper(name) = upper(:name)", nativeQuery = true)
+    List<Faculty> findByColorOrNameIgnoreCase(@Param("color") String color, @Param("name") String name);
+
+    @EntityGraph(attributePaths = "student")
+    Optional<Faculty> findWithStudentsById(Long id);
+
+    @Query("SELECT new ru.hogwarts.school.dto.FacultyVersion(f.version, s.id, s.version) " +
+            "FROM Faculty f LEFT JOIN f.student s WHERE f.id = :id ORDER BY s.id")
+    List<FacultyVersion> findVersionsById(@Param("id") Long id);
+
+    @Query("SELECT f.name FROM Faculty f WHERE f.name IS NOT NULL ORDER BY length(f.name) DESC, f.name")
+    List<String> findLongestNames(Limit limit);
 
 }
@@ -1,18 +1,31 @@
 package ru.hogwarts.school.repositories;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.hogwarts.school.dto.AgeGroup;
 import ru.hogwarts.school.model.Student;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface StudentRepository extends JpaRepository<Student, Long> {
+public interface StudentRepository extends JpaRepository<Student, Long>, StudentStreamRepository {
 
     Collection<Student> findByAge(int age);
 
     Collection<Student> findByAgeBetween(int min, int max);
 
+    List<Student> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    @Query("SELECT s FROM Student s LEFT JOIN FETCH s.faculty f LEFT JOIN FETCH f.student WHERE s.id = :id")
+    Optional<Student> findWithFacultyById(@Param("id") Long id);
+
+    @Query("SELECT s.version FROM Student s WHERE s.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
     @Query(value = "SELECT COUNT(*) FROM student", nativeQuery = true)
     long getCountAllStudents();
 
@@ -22,4 +35,14 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
     @Query(value = "SELECT * FROM student ORDER BY id DESC LIMIT 5", nativeQuery = true)
     List<Student> getFiveLastStudents();
 
+    @Query("SELECT new ru.hogwarts.school.dto.AgeGroup(f.id, s.age, COUNT(s)) " +
+            "FROM Student s LEFT JOIN s.faculty f GROUP BY f.id, s.age")
+    List<AgeGroup> countByFacultyAndAge();
+
+    @Query("SELECT s.name FROM Student s WHERE s.name LIKE :pattern ESCAPE '\\'")
+    List<String> findNamesLike(@Param("pattern") String pattern, Sort sort);
+
+    @Query("SELECT s.name FROM Student s WHERE UPPER(s.name) LIKE :pattern ESCAPE '\\'")
+    List<String> findNamesUpperLike(@Param("pattern") String pattern, Sort sort);
+
 }
@@ -0,0 +1,13 @@
+package ru.hogwarts.school.repositories;
+
+import ru.hogwarts.school.dto.StudentExportRow;
+
+import java.util.stream.Stream;
+
+public interface StudentStreamRepository {
+
+    Stream<Integer> streamAges();
+
+    Stream<StudentExportRow> streamExportRows();
+
+}
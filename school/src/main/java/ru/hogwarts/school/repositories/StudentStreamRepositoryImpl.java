@@ -0,0 +1,33 @@
+package ru.hogwarts.school.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import ru.hogwarts.school.dto.StudentExportRow;
+
+import java.util.stream.Stream;
+
+public class StudentStreamRepositoryImpl implements StudentStreamRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${student.stream.fetch-size}")
+    private int fetchSize;
+
+    @Override
+    public Stream<Integer> streamAges() {
+        return entityManager.createQuery("SELECT s.age FROM Student s", Integer.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    @Override
+    public Stream<StudentExportRow> streamExportRows() {
+        return entityManager.createQuery("SELECT new ru.hogwarts.school.dto.StudentExportRow(s.id, s.name, s.age, f.id, f.name) " +
+                        "FROM Student s LEFT JOIN s.faculty f ORDER BY s.id", StudentExportRow.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+}
@@ -0,0 +1,127 @@
+package ru.hogwarts.school.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.LongStream;
+
+@Service
+public class AggregationEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(AggregationEngine.class);
+
+    private static final long FORK_JOIN_THRESHOLD = 100_000;
+
+    public enum Strategy {
+        SEQUENTIAL, PARALLEL, FORK_JOIN, CLOSED_FORM;
+
+        public static Strategy parse(String value) {
+            String name = value.trim().replace('-', '_').toUpperCase(Locale.ROOT);
+            for (Strategy strategy : values()) {
+                if (strategy.name().equals(name)) {
+                    return strategy;
+                }
+            }
+            return null;
+        }
+    }
+
+    @Value("${aggregation.parallelism}")
+    private int parallelism;
+
+    private final MeterRegistry meterRegistry;
+
+    private ForkJoinPool pool;
+
+    public AggregationEngine(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("aggregation-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+
+        Gauge.builder("aggregation.pool.active", pool, ForkJoinPool::getActiveThreadCount)
+                .register(meterRegistry);
+        Gauge.builder("aggregation.pool.queued", pool, p -> p.getQueuedSubmissionCount() + p.getQueuedTaskCount())
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public long sum(long bound, Strategy strategy) {
+        logger.info("Was invoked method for sum range");
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return switch (strategy) {
+                case SEQUENTIAL -> sequential(bound);
+                case PARALLEL -> pool.submit(() -> LongStream.rangeClosed(1, bound).parallel().sum()).join();
+                case FORK_JOIN -> pool.invoke(new RangeSum(1, bound));
+                case CLOSED_FORM -> closedForm(bound);
+            };
+        } finally {
+            sample.stop(Timer.builder("aggregation.duration")
+                    .tag("strategy", strategy.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    private static long sequential(long bound) {
+        long sum = 0;
+        for (long i = 1; i <= bound; i++) {
+            sum += i;
+        }
+        return sum;
+    }
+
+    private static long closedForm(long bound) {
+        return bound % 2 == 0
+                ? Math.multiplyExact(bound / 2, bound + 1)
+                : Math.multiplyExact(bound, (bound + 1) / 2);
+    }
+
+    private static class RangeSum extends RecursiveTask<Long> {
+
+        private final long from;
+        private final long to;
+
+        RangeSum(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from < FORK_JOIN_THRESHOLD) {
+                long sum = 0;
+                for (long i = from; i <= to; i++) {
+                    sum += i;
+                }
+                return sum;
+            }
+            long middle = from + (to - from) / 2;
+            RangeSum left = new RangeSum(from, middle);
+            left.fork();
+            return new RangeSum(middle + 1, to).compute() + left.join();
+        }
+    }
+}
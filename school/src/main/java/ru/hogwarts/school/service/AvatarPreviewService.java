@@ -0,0 +1,145 @@
+package ru.hogwarts.school.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.PreviewStatus;
+import ru.hogwarts.school.repositories.AvatarRepository;
+
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class AvatarPreviewService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvatarPreviewService.class);
+
+    private static final int PREVIEW_WIDTH = 100;
+
+    @Value("${avatar.preview.workers}")
+    private int workers;
+
+    @Value("${avatar.preview.queue-capacity}")
+    private int queueCapacity;
+
+    private final AvatarRepository avatarRepository;
+    private final ImageResizer imageResizer;
+    private final MeterRegistry meterRegistry;
+
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolExecutor executor;
+    private Timer queueWaitTimer;
+    private Counter rejected;
+
+    public AvatarPreviewService(AvatarRepository avatarRepository,
+                                ImageResizer imageResizer,
+                                MeterRegistry meterRegistry) {
+        this.avatarRepository = avatarRepository;
+        this.imageResizer = imageResizer;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("avatar-preview-"));
+
+        Gauge.builder("avatar.preview.queue.depth", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("avatar.preview.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        queueWaitTimer = Timer.builder("avatar.preview.queue.wait")
+                .register(meterRegistry);
+        rejected = meterRegistry.counter("avatar.preview.rejected");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public void schedule(long avatarId, Path filePath) {
+        logger.info("Was invoked method for schedule avatar preview");
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(avatarId, filePath);
+                }
+            });
+        } else {
+            submit(avatarId, filePath);
+        }
+    }
+
+    // picks up previews left PENDING by a full queue or a restart
+    @Scheduled(fixedDelayString = "${avatar.preview.sweep-interval}", initialDelayString = "${avatar.preview.sweep-interval}")
+    public void sweep() {
+        int room = executor.getQueue().remainingCapacity();
+        if (room == 0) {
+            return;
+        }
+        for (Avatar avatar : avatarRepository.findByPreviewStatusOrderById(PreviewStatus.PENDING, Limit.of(room + inFlight.size()))) {
+            if (!submit(avatar.getId(), Path.of(avatar.getFilePath()))) {
+                return;
+            }
+        }
+    }
+
+    private boolean submit(long avatarId, Path filePath) {
+        if (!inFlight.add(avatarId)) {
+            return true;
+        }
+        long enqueuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> generate(avatarId, filePath, enqueuedAt));
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(avatarId);
+            rejected.increment();
+            logger.warn("Preview queue is full, avatar {} stays pending until the next sweep", avatarId);
+            return false;
+        }
+    }
+
+    private void generate(long avatarId, Path filePath, long enqueuedAt) {
+        queueWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            byte[] preview = imageResizer.resize(filePath, PREVIEW_WIDTH);
+            avatarRepository.updatePreview(avatarId, filePath.toString(), preview, PreviewStatus.READY);
+        } catch (Exception e) {
+            outcome = "failure";
+            logger.error("Failed to generate preview for avatar {}", avatarId, e);
+            avatarRepository.updatePreview(avatarId, filePath.toString(), null, PreviewStatus.FAILED);
+        } finally {
+            inFlight.remove(avatarId);
+            sample.stop(Timer.builder("avatar.preview.processing")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package ru.hogwarts.school.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class AvatarRenditionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvatarRenditionService.class);
+
+    @Value("${avatar.rendition.widths}")
+    private Set<Integer> widths;
+
+    @Value("${avatar.rendition.cache.max-bytes}")
+    private long maxBytes;
+
+    private final ImageResizer imageResizer;
+
+    private final LinkedHashMap<RenditionKey, byte[]> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<RenditionKey, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private long cachedBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+    private final Counter evictions;
+
+    public AvatarRenditionService(ImageResizer imageResizer, MeterRegistry meterRegistry) {
+        this.imageResizer = imageResizer;
+        this.hits = meterRegistry.counter("avatar.rendition.requests", "result", "hit");
+        this.misses = meterRegistry.counter("avatar.rendition.requests", "result", "miss");
+        this.coalesced = meterRegistry.counter("avatar.rendition.requests", "result", "coalesced");
+        this.evictions = meterRegistry.counter("avatar.rendition.evictions");
+        Gauge.builder("avatar.rendition.cache.bytes", this, AvatarRenditionService::getCachedBytes)
+                .register(meterRegistry);
+    }
+
+    public boolean isSupportedWidth(int width) {
+        return widths.contains(width);
+    }
+
+    public byte[] getRendition(Path original, int width) throws IOException {
+        logger.info("Was invoked method for get avatar rendition");
+
+        RenditionKey key = new RenditionKey(original.toString(), Files.getLastModifiedTime(original).toMillis(), width);
+        byte[] data = get(key);
+        if (data != null) {
+            hits.increment();
+            return data;
+        }
+
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        try {
+            data = get(key);
+            if (data == null) {
+                misses.increment();
+                data = imageResizer.resize(original, width);
+                put(key, data);
+            }
+            future.complete(data);
+            return data;
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private byte[] await(CompletableFuture<byte[]> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private synchronized byte[] get(RenditionKey key) {
+        return cache.get(key);
+    }
+
+    private synchronized void put(RenditionKey key, byte[] data) {
+        if (data.length > maxBytes) {
+            return;
+        }
+        byte[] previous = cache.put(key, data);
+        cachedBytes += data.length - (previous == null ? 0 : previous.length);
+
+        Iterator<Map.Entry<RenditionKey, byte[]>> iterator = cache.entrySet().iterator();
+        while (cachedBytes > maxBytes && iterator.hasNext()) {
+            cachedBytes -= iterator.next().getValue().length;
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    private synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    private record RenditionKey(String filePath, long lastModified, int width) {
+    }
+}
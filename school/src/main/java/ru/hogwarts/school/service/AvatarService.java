@@ -3,24 +3,31 @@ package ru.hogwarts.school.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import jakarta.transaction.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import ru.hogwarts.school.dto.AvatarPreview;
+import ru.hogwarts.school.dto.AvatarSummary;
+import ru.hogwarts.school.dto.CursorPage;
 import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.PreviewStatus;
 import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.repositories.AvatarRepository;
 import ru.hogwarts.school.repositories.StudentRepository;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.*;
-import java.nio.file.Files;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
-
-import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @Transactional
@@ -28,61 +35,91 @@ public class AvatarService {
 
     private static final Logger logger = LoggerFactory.getLogger(AvatarService.class);
 
-    @Value("${path.to.avatars.folder}")
-    private String avatarsDir;
-
     private final StudentRepository studentRepository;
     private final AvatarRepository avatarRepository;
-
-    public AvatarService(StudentRepository studentRepository, AvatarRepository avatarRepository) {
+    private final AvatarPreviewService avatarPreviewService;
+    private final AvatarStorage avatarStorage;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<String> reclaimable = ConcurrentHashMap.newKeySet();
+
+    @Value("${avatar.blob.reclaim-grace}")
+    private Duration reclaimGrace;
+
+    public AvatarService(StudentRepository studentRepository,
+                         AvatarRepository avatarRepository,
+                         AvatarPreviewService avatarPreviewService,
+                         AvatarStorage avatarStorage,
+                         PlatformTransactionManager transactionManager) {
         this.studentRepository = studentRepository;
         this.avatarRepository = avatarRepository;
+        this.avatarPreviewService = avatarPreviewService;
+        this.avatarStorage = avatarStorage;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
+    // the upload is stored before a transaction is opened, so a slow client never holds a connection
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void uploadAvatar(Long studentId, MultipartFile file) throws IOException {
         logger.info("Was invoked method for upload avatar");
 
-        Student student = studentRepository.getById(studentId);
+        Path filePath;
+        try (InputStream is = file.getInputStream()) {
+            filePath = avatarStorage.store(is, file.getSize());
+        }
 
-        Path filePath = Path.of(avatarsDir, studentId + "." + getExtension(file.getOriginalFilename()));
-        Files.createDirectories(filePath.getParent());
-        Files.deleteIfExists(filePath);
-
-        try (
-                InputStream is = file.getInputStream();
-                OutputStream os = Files.newOutputStream(filePath, CREATE_NEW);
-                BufferedInputStream bis = new BufferedInputStream(is, 1024);
-                BufferedOutputStream bos = new BufferedOutputStream(os, 1024);
-        ) {
-            bis.transferTo(bos);
+        String replaced;
+        try {
+            replaced = transactionTemplate.execute(status -> saveAvatar(studentId, filePath, file));
+        } catch (RuntimeException e) {
+            reclaim(filePath.toString());
+            throw e;
         }
+        if (replaced != null && !replaced.equals(filePath.toString())) {
+            reclaim(replaced);
+        }
+    }
+
+    // retries blobs that were replaced while still within the grace period of a store
+    @Scheduled(fixedDelayString = "${avatar.blob.reclaim-grace}", initialDelayString = "${avatar.blob.reclaim-grace}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void reclaimReplacedBlobs() {
+        for (String filePath : List.copyOf(reclaimable)) {
+            reclaimable.remove(filePath);
+            reclaim(filePath);
+        }
+    }
+
+    private String saveAvatar(Long studentId, Path filePath, MultipartFile file) {
+        Student student = studentRepository.getById(studentId);
 
         Avatar avatar = findAvatar(studentId);
+        String previous = avatar.getFilePath();
+        if (filePath.toString().equals(previous) && avatar.getPreviewStatus() == PreviewStatus.READY) {
+            return null;
+        }
         avatar.setStudent(student);
         avatar.setFilePath(filePath.toString());
         avatar.setFileSize(file.getSize());
         avatar.setMediaType(file.getContentType());
-        avatar.setData(generateDataForDB(filePath));
+        avatar.setData(null);
+        avatar.setPreviewStatus(PreviewStatus.PENDING);
 
-        avatarRepository.save(avatar);
+        avatar = avatarRepository.save(avatar);
+        avatarPreviewService.schedule(avatar.getId(), filePath);
+        return previous;
     }
 
-    private byte[] generateDataForDB(Path filePath) throws IOException {
-        try (
-                InputStream is = Files.newInputStream(filePath);
-                BufferedInputStream bis = new BufferedInputStream(is, 1024);
-                ByteArrayOutputStream baos = new ByteArrayOutputStream()
-        ) {
-            BufferedImage image = ImageIO.read(bis);
-
-            int height = image.getHeight() / (image.getWidth() / 100);
-            BufferedImage preview = new BufferedImage(100, height, image.getType());
-            Graphics2D graphics = preview.createGraphics();
-            graphics.drawImage(image, 0, 0, 100, height, null);
-            graphics.dispose();
-
-            ImageIO.write(preview, getExtension(filePath.getFileName().toString()), baos);
-            return baos.toByteArray();
+    // blobs are shared by content, the replaced one goes only when no avatar references it any more
+    private void reclaim(String filePath) {
+        if (avatarRepository.existsByFilePath(filePath)) {
+            return;
+        }
+        try {
+            if (!avatarStorage.deleteIfIdle(Path.of(filePath), reclaimGrace)) {
+                reclaimable.add(filePath);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not delete replaced avatar file {}", filePath, e);
         }
     }
 
@@ -91,16 +128,25 @@ public class AvatarService {
         return avatarRepository.findByStudentId(studentId).orElse(new Avatar());
     }
 
-    private String getExtension(String fileName) {
-        return fileName.substring(fileName.lastIndexOf(".") + 1);
+    public AvatarPreview findAvatarPreview(Long studentId) {
+        logger.info("Was invoked method for find avatar preview");
+        return avatarRepository.findPreviewByStudentId(studentId).orElse(null);
     }
 
-    public List<Avatar> getAllAvatars(int pageNumber, int pageSize) {
+    @Transactional(readOnly = true)
+    public List<AvatarSummary> getAllAvatars(int pageNumber, int pageSize) {
         logger.info("Was invoked method for get all avatars");
         if (pageNumber <= 0 || pageSize <=0) {
             return null;
         }
         PageRequest pageRequest = PageRequest.of(pageNumber - 1, pageSize);
-        return avatarRepository.findAll(pageRequest).getContent();
+        return avatarRepository.findAllSummaries(pageRequest);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<AvatarSummary> getAvatarsAfter(String after, int limit) {
+        logger.info("Was invoked method for get avatars after cursor");
+        List<AvatarSummary> avatars = avatarRepository.findSummariesAfter(CursorPage.decode(after), Limit.of(limit + 1));
+        return CursorPage.of(avatars, limit, AvatarSummary::id);
     }
 }
@@ -0,0 +1,136 @@
+package ru.hogwarts.school.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+
+@Component
+public class AvatarStorage {
+
+    private static final String BLOBS_DIR = "blobs";
+    private static final String TMP_DIR = "tmp";
+
+    @Value("${path.to.avatars.folder}")
+    private String avatarsDir;
+
+    @Value("${avatar.upload.buffer-size}")
+    private int bufferSize;
+
+    @Value("${avatar.upload.max-size}")
+    private DataSize maxSize;
+
+    @Value("${avatar.upload.memory-threshold}")
+    private DataSize memoryThreshold;
+
+    public Path store(InputStream is, long declaredSize) throws IOException {
+        long maxBytes = maxSize.toBytes();
+        if (declaredSize > maxBytes) {
+            throw new MaxUploadSizeExceededException(maxBytes);
+        }
+
+        MessageDigest digest = newDigest();
+        InputStream in = new DigestInputStream(is, digest);
+        // uploads up to the threshold are hashed in memory, a duplicate of a stored blob never touches the disk
+        int inMemory = (int) Math.min(memoryThreshold.toBytes(), maxBytes + 1);
+        byte[] head = in.readNBytes(inMemory);
+        if (head.length > maxBytes) {
+            throw new MaxUploadSizeExceededException(maxBytes);
+        }
+
+        Path tmp = null;
+        try {
+            if (head.length < inMemory) {
+                Path target = resolve(HexFormat.of().formatHex(digest.digest()));
+                if (Files.exists(target)) {
+                    return touch(target);
+                }
+                tmp = createTempFile();
+                Files.write(tmp, head);
+                return publish(tmp, target);
+            }
+
+            tmp = createTempFile();
+            byte[] buffer = new byte[bufferSize];
+            long size = head.length;
+            try (OutputStream os = Files.newOutputStream(tmp)) {
+                os.write(head);
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxBytes) {
+                        throw new MaxUploadSizeExceededException(maxBytes);
+                    }
+                    os.write(buffer, 0, read);
+                }
+            }
+
+            Path target = resolve(HexFormat.of().formatHex(digest.digest()));
+            if (Files.exists(target)) {
+                return touch(target);
+            }
+            return publish(tmp, target);
+        } finally {
+            if (tmp != null) {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    // false while the file is within the grace period of its last store, an upload may be about to reference it
+    public boolean deleteIfIdle(Path file, Duration grace) throws IOException {
+        if (!file.toAbsolutePath().normalize().startsWith(Path.of(avatarsDir).toAbsolutePath().normalize())
+                || !Files.exists(file)) {
+            return true;
+        }
+        if (Files.getLastModifiedTime(file).toInstant().isAfter(Instant.now().minus(grace))) {
+            return false;
+        }
+        Files.deleteIfExists(file);
+        return true;
+    }
+
+    public Path resolve(String hash) {
+        return Path.of(avatarsDir, BLOBS_DIR, hash.substring(0, 2), hash.substring(2, 4), hash);
+    }
+
+    private Path createTempFile() throws IOException {
+        Path tmpDir = Path.of(avatarsDir, TMP_DIR);
+        Files.createDirectories(tmpDir);
+        return Files.createTempFile(tmpDir, "upload-", ".part");
+    }
+
+    private Path publish(Path tmp, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Files.move(tmp, target, ATOMIC_MOVE);
+        return target;
+    }
+
+    private Path touch(Path blob) throws IOException {
+        Files.setLastModifiedTime(blob, FileTime.from(Instant.now()));
+        return blob;
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -2,33 +2,77 @@ package ru.hogwarts.school.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hogwarts.school.dto.FacultyVersion;
 import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.repositories.FacultyRepository;
 
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.stream.Stream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @Service
 public class FacultyService {
 
     private static final Logger logger = LoggerFactory.getLogger(FacultyService.class);
 
+    private static final int MAX_LONGEST_NAMES = 100;
+
+    @Value("${faculty.lookup.cache.max-entries}")
+    private int lookupCacheMaxEntries;
+
+    @Value("${aggregation.max-bound}")
+    private long maxAggregationBound;
+
     private final FacultyRepository facultyRepository;
+    private final AggregationEngine aggregationEngine;
+
+    private final Map<LookupKey, List<Long>> lookupCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LookupKey, List<Long>> eldest) {
+            return size() > lookupCacheMaxEntries;
+        }
+    };
+    private long lookupGeneration;
 
-    public FacultyService(FacultyRepository facultyRepository) {
+    public FacultyService(FacultyRepository facultyRepository, AggregationEngine aggregationEngine) {
         this.facultyRepository = facultyRepository;
+        this.aggregationEngine = aggregationEngine;
     }
 
     public Faculty createFaculty(Faculty faculty) {
         logger.info("Was invoked method for create faculty");
-        return facultyRepository.save(faculty);
+        Faculty savedFaculty = facultyRepository.save(faculty);
+        invalidateLookups();
+        return savedFaculty;
     }
 
     public Faculty findFaculty(long id) {
         logger.info("Was invoked method for find faculty by ID");
-        return facultyRepository.findById(id).orElse(null);
+        return facultyRepository.findWithStudentsById(id).orElse(null);
+    }
+
+    // faculty and its students collection are read through the second-level cache, warm reads run no SQL
+    @Transactional(readOnly = true)
+    public List<Student> findFacultyStudents(long id) {
+        logger.info("Was invoked method for find students by faculty ID");
+        return facultyRepository.findById(id)
+                .map(faculty -> faculty.getStudents().stream()
+                        .sorted(Comparator.comparing(Student::getId))
+                        .toList())
+                .orElse(null);
+    }
+
+    public List<FacultyVersion> findFacultyVersions(long id) {
+        logger.info("Was invoked method for find faculty versions by ID");
+        return facultyRepository.findVersionsById(id);
     }
 
     public Faculty editFaculty(Long id, Faculty faculty) {
@@ -36,35 +80,76 @@ public class FacultyService {
         Faculty existingFaculty = facultyRepository.findById(id).orElse(null);
         existingFaculty.setName(faculty.getName());
         existingFaculty.setColor(faculty.getColor());
-        return facultyRepository.save(existingFaculty);
+        Faculty savedFaculty = facultyRepository.save(existingFaculty);
+        invalidateLookups();
+        return savedFaculty;
     }
 
     public void deleteFaculty(long id) {
         logger.info("Was invoked method for delete faculty by ID");
         facultyRepository.deleteById(id);
+        invalidateLookups();
     }
 
     public Collection<Faculty> findFacultyByColorOrName(String color, String name) {
         logger.info("Was invoked method for find faculty by color or name");
-        return facultyRepository.findByColorIgnoreCaseOrNameIgnoreCase(color, name);
+
+        LookupKey key = new LookupKey(color.toUpperCase(Locale.ROOT), name.toUpperCase(Locale.ROOT));
+        List<Long> ids;
+        long generation;
+        synchronized (lookupCache) {
+            ids = lookupCache.get(key);
+            generation = lookupGeneration;
+        }
+        if (ids != null) {
+            return facultyRepository.findAllById(ids);
+        }
+
+        List<Faculty> faculties = facultyRepository.findByColorOrNameIgnoreCase(color, name);
+        synchronized (lookupCache) {
+            if (generation == lookupGeneration) {
+                lookupCache.put(key, faculties.stream().map(Faculty::getId).toList());
+            }
+        }
+        return faculties;
+    }
+
+    private void invalidateLookups() {
+        synchronized (lookupCache) {
+            lookupGeneration++;
+            lookupCache.clear();
+        }
     }
 
+    @Transactional(readOnly = true)
     public String findLoggestFacultyName() {
         logger.info("Was invoked method for find loggest faculty name");
 
-        return facultyRepository.findAll().stream()
-                .map(Faculty::getName)
-                .max(Comparator.comparingInt(String::length))
-                .get();
+        return facultyRepository.findLongestNames(Limit.of(1)).stream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> findLongestFacultyNames(int limit) {
+        logger.info("Was invoked method for find longest faculty names");
+
+        if (limit < 1 || limit > MAX_LONGEST_NAMES) {
+            return null;
+        }
+        return facultyRepository.findLongestNames(Limit.of(limit));
     }
 
-    public Integer getSmthIdk() {
+    public Long getSmthIdk(long bound, AggregationEngine.Strategy strategy) {
         logger.info("Was invoked method for get smth idk");
 
-        return Stream.iterate(1, a -> a + 1)
-                .limit(1_000_000)
-                .parallel()
-                .reduce(0, Integer::sum);
+        if (bound < 0 || bound > maxAggregationBound) {
+            return null;
+        }
+        return aggregationEngine.sum(bound, strategy);
+    }
+
+    private record LookupKey(String color, String name) {
     }
 
 }
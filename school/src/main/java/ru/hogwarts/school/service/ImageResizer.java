@@ -0,0 +1,49 @@
+package ru.hogwarts.school.service;
+
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+@Component
+public class ImageResizer {
+
+    public byte[] resize(Path filePath, int width) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(filePath.toFile())) {
+            Iterator<ImageReader> readers = iis == null ? null : ImageIO.getImageReaders(iis);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format: " + filePath);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                return resize(reader.read(0), width, reader.getFormatName());
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    public byte[] resize(BufferedImage image, int width, String formatName) throws IOException {
+        int height = Math.max(1, image.getHeight() * width / image.getWidth());
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage preview = new BufferedImage(width, height, type);
+        Graphics2D graphics = preview.createGraphics();
+        graphics.drawImage(image, 0, 0, width, height, null);
+        graphics.dispose();
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        if (!ImageIO.write(preview, formatName, baos)) {
+            throw new IOException("No image writer for format " + formatName);
+        }
+        return baos.toByteArray();
+    }
+}
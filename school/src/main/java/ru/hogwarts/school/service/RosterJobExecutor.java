@@ -0,0 +1,146 @@
+package ru.hogwarts.school.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+@Component
+public class RosterJobExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RosterJobExecutor.class);
+
+    @Value("${roster.workers}")
+    private int workers;
+
+    @Value("${roster.queue-capacity}")
+    private int queueCapacity;
+
+    private final MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+    private Semaphore slots;
+    private Counter rejected;
+
+    public RosterJobExecutor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("roster-"));
+        // a queued partition always holds a slot, so a job whose slots are all reserved is never rejected midway
+        slots = new Semaphore(queueCapacity);
+
+        Gauge.builder("roster.queue.depth", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("roster.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        rejected = meterRegistry.counter("roster.rejected");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Splits {@code items} into at most one contiguous partition per worker and formats them in parallel.
+     * Ordered jobs hand every line to {@code sink} from a single thread in list order once all partitions
+     * are done; unordered jobs pass lines to {@code sink} from the workers as soon as they are formatted.
+     * The returned future fails with {@link RejectedExecutionException} when the executor queue has no room
+     * for every partition of the job, in which case none of them is submitted.
+     */
+    public <T> CompletableFuture<Void> run(String job,
+                                           List<T> items,
+                                           Function<? super T, String> formatter,
+                                           Consumer<String> sink,
+                                           boolean ordered) {
+        logger.info("Was invoked method for run roster job");
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<List<T>> chunks = partition(items);
+        if (!slots.tryAcquire(chunks.size())) {
+            return reject(job, sample, new RejectedExecutionException("Roster queue is full"));
+        }
+
+        List<CompletableFuture<List<String>>> partitions = new ArrayList<>();
+        try {
+            for (List<T> chunk : chunks) {
+                CompletableFuture<List<String>> partition = CompletableFuture.supplyAsync(
+                        () -> process(chunk, formatter, ordered ? null : sink), executor);
+                partition.whenComplete((lines, e) -> slots.release());
+                partitions.add(partition);
+            }
+        } catch (RejectedExecutionException e) {
+            // only after shutdown, drop what was already submitted
+            partitions.forEach(partition -> partition.cancel(false));
+            slots.release(chunks.size() - partitions.size());
+            return reject(job, sample, e);
+        }
+
+        return CompletableFuture.allOf(partitions.toArray(CompletableFuture[]::new))
+                .thenRun(() -> {
+                    if (ordered) {
+                        partitions.forEach(partition -> partition.join().forEach(sink));
+                    }
+                })
+                .whenComplete((result, e) -> sample.stop(timer(job, e == null ? "success" : "failure")));
+    }
+
+    private CompletableFuture<Void> reject(String job, Timer.Sample sample, RejectedExecutionException e) {
+        logger.warn("Roster queue is full, job {} is rejected", job);
+        rejected.increment();
+        sample.stop(timer(job, "rejected"));
+        return CompletableFuture.failedFuture(e);
+    }
+
+    private <T> List<List<T>> partition(List<T> items) {
+        int partitions = Math.min(Math.min(workers, queueCapacity), items.size());
+        List<List<T>> result = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            result.add(items.subList(items.size() * i / partitions, items.size() * (i + 1) / partitions));
+        }
+        return result;
+    }
+
+    private <T> List<String> process(List<T> partition, Function<? super T, String> formatter, Consumer<String> sink) {
+        List<String> lines = new ArrayList<>(sink == null ? partition.size() : 0);
+        for (T item : partition) {
+            String line = formatter.apply(item);
+            if (sink == null) {
+                lines.add(line);
+            } else {
+                sink.accept(line);
+            }
+        }
+        return lines;
+    }
+
+    private Timer timer(String job, String outcome) {
+        return Timer.builder("roster.job.duration")
+                .tag("job", job)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,118 @@
+package ru.hogwarts.school.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hogwarts.school.dto.StudentExportRow;
+import ru.hogwarts.school.repositories.StudentRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class StudentExportService {
+
+    public enum Format {
+        NDJSON,
+        CSV;
+
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentExportService.class);
+
+    private static final String CSV_HEADER = "id,name,age,faculty_id,faculty_name";
+
+    @Value("${student.export.flush-rows}")
+    private int flushRows;
+
+    private final StudentRepository studentRepository;
+    private final ObjectMapper objectMapper;
+
+    public StudentExportService(StudentRepository studentRepository, ObjectMapper objectMapper) {
+        this.studentRepository = studentRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(readOnly = true)
+    public void export(Format format, OutputStream out) throws IOException {
+        logger.info("Was invoked method for export students");
+
+        try (Stream<StudentExportRow> rows = studentRepository.streamExportRows()) {
+            if (format == Format.CSV) {
+                writeCsv(rows.iterator(), out);
+            } else {
+                writeNdjson(rows.iterator(), out);
+            }
+        }
+    }
+
+    private void writeNdjson(Iterator<StudentExportRow> rows, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+
+        long count = 0;
+        while (rows.hasNext()) {
+            generator.writeObject(rows.next());
+            generator.writeRaw('\n');
+            if (++count % flushRows == 0) {
+                generator.flush();
+            }
+        }
+        generator.close();
+        out.flush();
+    }
+
+    private void writeCsv(Iterator<StudentExportRow> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        long count = 0;
+        while (rows.hasNext()) {
+            StudentExportRow row = rows.next();
+            writer.write(String.valueOf(row.id()));
+            writer.write(',');
+            writer.write(escapeCsv(row.name()));
+            writer.write(',');
+            writer.write(String.valueOf(row.age()));
+            writer.write(',');
+            writer.write(row.facultyId() == null ? "" : String.valueOf(row.facultyId()));
+            writer.write(',');
+            writer.write(escapeCsv(row.facultyName()));
+            writer.write('\n');
+            if (++count % flushRows == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+    }
+
+    private String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,214 @@
+package ru.hogwarts.school.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.hogwarts.school.dto.BatchImportError;
+import ru.hogwarts.school.dto.BatchImportResult;
+import ru.hogwarts.school.dto.StudentImportRow;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repositories.FacultyRepository;
+import ru.hogwarts.school.repositories.StudentRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+@Service
+public class StudentImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentImportService.class);
+
+    @Value("${student.import.batch-size}")
+    private int batchSize;
+
+    private final StudentRepository studentRepository;
+    private final FacultyRepository facultyRepository;
+    private final StudentStatisticsService studentStatisticsService;
+    private final TransactionTemplate transactionTemplate;
+
+    public StudentImportService(StudentRepository studentRepository,
+                                FacultyRepository facultyRepository,
+                                StudentStatisticsService studentStatisticsService,
+                                PlatformTransactionManager transactionManager) {
+        this.studentRepository = studentRepository;
+        this.facultyRepository = facultyRepository;
+        this.studentStatisticsService = studentStatisticsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public BatchImportResult importStudents(List<StudentImportRow> students) {
+        logger.info("Was invoked method for import students");
+
+        ImportJob job = new ImportJob();
+        for (int i = 0; i < students.size(); i++) {
+            StudentImportRow row = students.get(i);
+            job.add(i + 1, row == null ? null : toStudent(row.name(), row.age(), row.facultyId()));
+        }
+        return job.finish();
+    }
+
+    public BatchImportResult importStudentsCsv(Reader reader) throws IOException {
+        logger.info("Was invoked method for import students from CSV");
+
+        ImportJob job = new ImportJob();
+        BufferedReader bufferedReader = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = bufferedReader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (lineNumber == 1 && line.trim().toLowerCase(Locale.ROOT).startsWith("name")) {
+                continue;
+            }
+            try {
+                job.add(lineNumber, parseCsvRow(line));
+            } catch (IllegalArgumentException e) {
+                job.reject(lineNumber, e.getMessage());
+            }
+        }
+        return job.finish();
+    }
+
+    private Student parseCsvRow(String line) {
+        List<String> fields = splitCsvLine(line);
+        if (fields.size() < 2 || fields.size() > 3) {
+            throw new IllegalArgumentException("Expected name,age[,faculty_id] but got " + fields.size() + " fields");
+        }
+
+        try {
+            int age = Integer.parseInt(fields.get(1).trim());
+            Long facultyId = fields.size() == 3 && !fields.get(2).isBlank() ? Long.parseLong(fields.get(2).trim()) : null;
+            return toStudent(fields.get(0), age, facultyId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + e.getMessage());
+        }
+    }
+
+    private Student toStudent(String name, int age, Long facultyId) {
+        Student student = new Student();
+        student.setName(name);
+        student.setAge(age);
+        if (facultyId != null) {
+            student.setFaculty(facultyRepository.getReferenceById(facultyId));
+        }
+        return student;
+    }
+
+    private List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private String validate(Student student) {
+        if (student == null) {
+            return "Empty row";
+        }
+        if (student.getName() == null || student.getName().isBlank()) {
+            return "Name is required";
+        }
+        if (student.getAge() < 0) {
+            return "Age must not be negative";
+        }
+        return null;
+    }
+
+    private record ImportRow(int row, Student student) {
+    }
+
+    private class ImportJob {
+
+        private final List<ImportRow> chunk = new ArrayList<>();
+        private final List<BatchImportError> errors = new ArrayList<>();
+        private int imported;
+
+        void add(int row, Student student) {
+            String error = validate(student);
+            if (error != null) {
+                reject(row, error);
+                return;
+            }
+            student.setId(null);
+            chunk.add(new ImportRow(row, student));
+            if (chunk.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(int row, String message) {
+            errors.add(new BatchImportError(row, message));
+        }
+
+        BatchImportResult finish() {
+            flush();
+            return new BatchImportResult(imported, errors);
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<ImportRow> rows = List.copyOf(chunk);
+            chunk.clear();
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    studentRepository.saveAll(rows.stream().map(ImportRow::student).toList());
+                    rows.forEach(row -> studentStatisticsService.onCreate(row.student()));
+                });
+                imported += rows.size();
+            } catch (RuntimeException e) {
+                logger.warn("Batch of {} students failed, retrying row by row", rows.size());
+                rows.forEach(this::saveSingle);
+            }
+        }
+
+        private void saveSingle(ImportRow row) {
+            row.student().setId(null);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    studentRepository.save(row.student());
+                    studentStatisticsService.onCreate(row.student());
+                });
+                imported++;
+            } catch (RuntimeException e) {
+                reject(row.row(), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            }
+        }
+    }
+}
@@ -2,13 +2,22 @@ package ru.hogwarts.school.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hogwarts.school.dto.CursorPage;
+import ru.hogwarts.school.dto.StudentStatistics;
 import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.repositories.StudentRepository;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class StudentService {
@@ -16,14 +25,23 @@ public class StudentService {
     private static final Logger logger = LoggerFactory.getLogger(StudentService.class);
 
     private final StudentRepository studentRepository;
+    private final StudentStatisticsService studentStatisticsService;
+    private final RosterJobExecutor rosterJobExecutor;
 
-    public StudentService(StudentRepository studentRepository) {
+    public StudentService(StudentRepository studentRepository,
+                          StudentStatisticsService studentStatisticsService,
+                          RosterJobExecutor rosterJobExecutor) {
         this.studentRepository = studentRepository;
+        this.studentStatisticsService = studentStatisticsService;
+        this.rosterJobExecutor = rosterJobExecutor;
     }
 
+    @Transactional
     public Student createStudent(Student student) {
         logger.info("Was invoked method for create student");
-        return studentRepository.save(student);
+        Student savedStudent = studentRepository.save(student);
+        studentStatisticsService.onCreate(savedStudent);
+        return savedStudent;
     }
 
     public Student findStudent(long id) {
@@ -31,24 +49,53 @@ public class StudentService {
         return studentRepository.findById(id).orElse(null);
     }
 
+    public Long findStudentVersion(long id) {
+        logger.info("Was invoked method for find student version by ID");
+        return studentRepository.findVersionById(id).orElse(null);
+    }
+
+    public Student findStudentWithFaculty(long id) {
+        logger.info("Was invoked method for find student with faculty by ID");
+        return studentRepository.findWithFacultyById(id).orElse(null);
+    }
+
+    @Transactional
     public Student editStudent(Long id, Student student) {
         logger.info("Was invoked method for edit student");
-        Student existingStudent = studentRepository.findById(id).orElse(null);
+        Student existingStudent = studentRepository.findById(id).orElseThrow();
+        int oldAge = existingStudent.getAge();
+        Long oldFacultyId = existingStudent.getFaculty() == null ? null : existingStudent.getFaculty().getId();
+
         existingStudent.setName(student.getName());
         existingStudent.setAge(student.getAge());
-        return studentRepository.save(existingStudent);
+        Student savedStudent = studentRepository.save(existingStudent);
+        studentStatisticsService.onEdit(oldFacultyId, oldAge, savedStudent);
+        return savedStudent;
     }
 
+    @Transactional
     public void deleteStudent(long id) {
         logger.info("Was invoked method for delete student by ID");
-        studentRepository.deleteById(id);
+        studentRepository.findById(id).ifPresent(student -> {
+            studentRepository.delete(student);
+            studentStatisticsService.onDelete(student);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<Student> getStudentsAfter(String after, int limit) {
+        logger.info("Was invoked method for get students after cursor");
+        List<Student> students = studentRepository.findByIdGreaterThanOrderByIdAsc(CursorPage.decode(after), Limit.of(limit + 1));
+        return CursorPage.of(students, limit, Student::getId);
     }
 
+    @Transactional(readOnly = true)
     public Collection<Student> findStudentByAge(int age) {
         logger.info("Was invoked method for find student by age");
         return studentRepository.findByAge(age);
     }
 
+    @Transactional(readOnly = true)
     public Collection<Student> findByAgeBetween(int min, int max) {
         logger.info("Was invoked method for find student by age between");
         return studentRepository.findByAgeBetween(min, max);
@@ -56,78 +103,74 @@ public class StudentService {
 
     public Long getCountAllStudents() {
         logger.info("Was invoked method for get count all students");
-        return studentRepository.getCountAllStudents();
+        return studentStatisticsService.getCount();
     }
 
     public Double getAverageAge() {
         logger.info("Was invoked method for get average age");
-        return studentRepository.getAverageAge();
+        return studentStatisticsService.getAverageAge();
+    }
+
+    public StudentStatistics getStatistics() {
+        logger.info("Was invoked method for get student statistics");
+        return studentStatisticsService.getStatistics();
     }
 
+    public StudentStatistics rebuildStatistics() {
+        logger.info("Was invoked method for rebuild student statistics");
+        studentStatisticsService.rebuild();
+        return studentStatisticsService.getStatistics();
+    }
+
+    @Transactional(readOnly = true)
     public List<Student> getFiveLastStudents() {
         logger.info("Was invoked method for get five last students");
         return studentRepository.getFiveLastStudents();
     }
 
+    @Transactional(readOnly = true)
     public List<String> getAllStudentsNameStartWithA() {
         logger.info("Was invoked method for get all students name start with A");
 
-        return studentRepository.findAll().stream()
-                .map(Student::getName)
-                .filter(e -> e.startsWith("A"))
+        return findNamesByPrefix("A", false, Sort.Direction.ASC).stream()
                 .map(String::toUpperCase)
                 .sorted()
                 .toList();
 
     }
 
+    @Transactional(readOnly = true)
+    public List<String> findNamesByPrefix(String prefix, boolean ignoreCase, Sort.Direction direction) {
+        logger.info("Was invoked method for find students names by prefix");
+
+        Sort sort = Sort.by(direction, "name");
+        String pattern = EscapeCharacter.DEFAULT.escape(prefix) + "%";
+        if (ignoreCase) {
+            return studentRepository.findNamesUpperLike(pattern.toUpperCase(Locale.ROOT), sort);
+        }
+        return studentRepository.findNamesLike(pattern, sort);
+    }
+
+    @Transactional(readOnly = true)
     public Double getAverageAgeStream() {
         logger.info("Was invoked method for get average age by stream");
 
-        return studentRepository.findAll().stream()
-                .collect(Collectors.averagingDouble(Student::getAge));
+        try (Stream<Integer> ages = studentRepository.streamAges()) {
+            return ages.collect(Collectors.averagingInt(Integer::intValue));
+        }
     }
 
-    public void printNameParallel() {
+    public CompletableFuture<Void> printNameParallel() {
         logger.info("Was invoked parallel method for print students' names");
 
-        List<Student> studentList = studentRepository.findAll();
-
-        System.out.println(studentList.get(0).getName());
-        System.out.println(studentList.get(1).getName());
-
-        new Thread(() -> {
-            System.out.println(studentList.get(2).getName());
-            System.out.println(studentList.get(3).getName());
-        }).start();
-
-        new Thread(() -> {
-            System.out.println(studentList.get(4).getName());
-            System.out.println(studentList.get(5).getName());
-        }).start();
+        return rosterJobExecutor.run("print-parallel", studentRepository.findAll(),
+                Student::getName, System.out::println, false);
     }
 
-
-    public void printNameSynchronized() {
+    public CompletableFuture<Void> printNameSynchronized() {
         logger.info("Was invoked synchronized method for print students' names");
 
-        List<Student> studentList = studentRepository.findAll();
-
-        printName(studentList, 0);
-        printName(studentList, 1);
-
-        new Thread(() -> {
-            printName(studentList, 2);
-            printName(studentList, 3);
-        }).start();
-
-        new Thread(() -> {
-            printName(studentList, 4);
-            printName(studentList, 5);
-        }).start();
-    }
-
-    private synchronized void printName(List<Student> students, int i) {
-        System.out.println(students.get(i).getName());
+        return rosterJobExecutor.run("print-synchronized", studentRepository.findAll(),
+                Student::getName, System.out::println, true);
     }
 }
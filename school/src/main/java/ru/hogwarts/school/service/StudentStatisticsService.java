@@ -0,0 +1,175 @@
+package ru.hogwarts.school.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.hogwarts.school.dto.AgeGroup;
+import ru.hogwarts.school.dto.AgeStatistics;
+import ru.hogwarts.school.dto.FacultyAgeStatistics;
+import ru.hogwarts.school.dto.StudentStatistics;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repositories.StudentRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Component
+public class StudentStatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentStatisticsService.class);
+
+    private static final int MAX_REBUILD_ATTEMPTS = 5;
+
+    private final StudentRepository studentRepository;
+
+    private AgeHistogram total = new AgeHistogram();
+    private Map<Long, AgeHistogram> byFaculty = new HashMap<>();
+    private long generation;
+    private int pending;
+
+    public StudentStatisticsService(StudentRepository studentRepository) {
+        this.studentRepository = studentRepository;
+    }
+
+    // not read-only on purpose: a lagging replica would miss deltas that were already applied
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        logger.info("Was invoked method for rebuild student statistics");
+
+        for (int attempt = 0; attempt < MAX_REBUILD_ATTEMPTS; attempt++) {
+            long startGeneration;
+            synchronized (this) {
+                startGeneration = generation;
+            }
+
+            AgeHistogram newTotal = new AgeHistogram();
+            Map<Long, AgeHistogram> newByFaculty = new HashMap<>();
+            for (AgeGroup group : studentRepository.countByFacultyAndAge()) {
+                newTotal.add(group.age(), group.count());
+                newByFaculty.computeIfAbsent(group.facultyId(), id -> new AgeHistogram())
+                        .add(group.age(), group.count());
+            }
+
+            // a write committed or still in flight during the query would be lost or counted twice
+            synchronized (this) {
+                if (generation == startGeneration && pending == 0) {
+                    total = newTotal;
+                    byFaculty = newByFaculty;
+                    return;
+                }
+            }
+        }
+        logger.warn("Student statistics were not rebuilt, writes kept overlapping the rebuild");
+    }
+
+    public void onCreate(Student student) {
+        Long facultyId = getFacultyId(student.getFaculty());
+        int age = student.getAge();
+        afterCommit(() -> add(facultyId, age, 1));
+    }
+
+    public void onEdit(Long oldFacultyId, int oldAge, Student student) {
+        Long facultyId = getFacultyId(student.getFaculty());
+        int age = student.getAge();
+        afterCommit(() -> {
+            add(oldFacultyId, oldAge, -1);
+            add(facultyId, age, 1);
+        });
+    }
+
+    public void onDelete(Student student) {
+        Long facultyId = getFacultyId(student.getFaculty());
+        int age = student.getAge();
+        afterCommit(() -> add(facultyId, age, -1));
+    }
+
+    public synchronized long getCount() {
+        return total.count;
+    }
+
+    public synchronized Double getAverageAge() {
+        return total.toStatistics().averageAge();
+    }
+
+    public synchronized StudentStatistics getStatistics() {
+        List<FacultyAgeStatistics> faculties = byFaculty.entrySet().stream()
+                .map(e -> new FacultyAgeStatistics(e.getKey(), e.getValue().toStatistics()))
+                .toList();
+        return new StudentStatistics(total.toStatistics(), faculties);
+    }
+
+    // deltas of a transaction are applied only once it commits and dropped on rollback
+    private void afterCommit(Runnable delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(delta);
+            return;
+        }
+        synchronized (this) {
+            pending++;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(delta);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                synchronized (StudentStatisticsService.this) {
+                    pending--;
+                }
+            }
+        });
+    }
+
+    private synchronized void apply(Runnable delta) {
+        delta.run();
+        generation++;
+    }
+
+    private void add(Long facultyId, int age, long delta) {
+        total.add(age, delta);
+        AgeHistogram faculty = byFaculty.computeIfAbsent(facultyId, id -> new AgeHistogram());
+        faculty.add(age, delta);
+        if (faculty.count == 0) {
+            byFaculty.remove(facultyId);
+        }
+    }
+
+    private Long getFacultyId(Faculty faculty) {
+        return faculty == null ? null : faculty.getId();
+    }
+
+    private static class AgeHistogram {
+
+        private final TreeMap<Integer, Long> ages = new TreeMap<>();
+        private long count;
+        private long sum;
+
+        void add(int age, long delta) {
+            long current = ages.getOrDefault(age, 0L);
+            long updated = Math.max(0, current + delta);
+            if (updated == 0) {
+                ages.remove(age);
+            } else {
+                ages.put(age, updated);
+            }
+            count += updated - current;
+            sum += (updated - current) * age;
+        }
+
+        AgeStatistics toStatistics() {
+            if (count == 0) {
+                return new AgeStatistics(0, null, null, null);
+            }
+            return new AgeStatistics(count, (double) sum / count, ages.firstKey(), ages.lastKey());
+        }
+    }
+}
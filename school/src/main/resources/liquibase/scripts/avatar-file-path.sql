@@ -0,0 +1,4 @@
+-- liquibase formatted sql
+
+-- changeset loulou1945:12
+CREATE INDEX avatar_file_path_index ON avatar (file_path);
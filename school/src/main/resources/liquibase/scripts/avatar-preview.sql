@@ -0,0 +1,6 @@
+-- liquibase formatted sql
+
+-- changeset loulou1945:3
+ALTER TABLE avatar ADD COLUMN preview_status VARCHAR(16);
+UPDATE avatar SET preview_status = 'READY' WHERE data IS NOT NULL;
+UPDATE avatar SET preview_status = 'FAILED' WHERE data IS NULL;
@@ -0,0 +1,9 @@
+-- liquibase formatted sql
+
+-- changeset loulou1945:6
+CREATE SEQUENCE IF NOT EXISTS student_seq INCREMENT BY 50;
+SELECT setval('student_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM student), (SELECT last_value FROM student_seq)) + 50, false);
+
+-- changeset loulou1945:7
+CREATE SEQUENCE IF NOT EXISTS faculty_seq INCREMENT BY 50;
+SELECT setval('faculty_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM faculty), (SELECT last_value FROM faculty_seq)) + 50, false);
@@ -0,0 +1,5 @@
+-- liquibase formatted sql
+
+-- changeset loulou1945:11
+ALTER TABLE student ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE faculty ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,7 @@
+-- liquibase formatted sql
+
+-- changeset loulou1945:8
+CREATE INDEX faculty_upper_color_index ON faculty (upper(color));
+
+-- changeset loulou1945:9
+CREATE INDEX faculty_upper_name_index ON faculty (upper(name));
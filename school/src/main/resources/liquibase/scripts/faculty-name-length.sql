@@ -0,0 +1,4 @@
+-- liquibase formatted sql
+
+-- changeset loulou1945:10
+CREATE INDEX faculty_name_length_index ON faculty (length(name) DESC, name) WHERE name IS NOT NULL;
@@ -0,0 +1,7 @@
+-- liquibase formatted sql
+
+-- changeset loulou1945:4
+CREATE INDEX student_name_pattern_index ON student (name text_pattern_ops);
+
+-- changeset loulou1945:5
+CREATE INDEX student_upper_name_pattern_index ON student (upper(name) text_pattern_ops);
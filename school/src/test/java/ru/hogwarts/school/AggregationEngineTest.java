@@ -0,0 +1,45 @@
+package ru.hogwarts.school;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.hogwarts.school.service.AggregationEngine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AggregationEngineTest {
+
+    private AggregationEngine aggregationEngine;
+
+    @BeforeEach
+    public void setUp() {
+        aggregationEngine = new AggregationEngine(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(aggregationEngine, "parallelism", 2);
+        aggregationEngine.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        aggregationEngine.shutdown();
+    }
+
+    @Test
+    public void strategiesAgreeTest() {
+        for (long bound : new long[]{0, 1, 1_000_000, 10_000_001}) {
+            long expected = bound * (bound + 1) / 2;
+            for (AggregationEngine.Strategy strategy : AggregationEngine.Strategy.values()) {
+                assertThat(aggregationEngine.sum(bound, strategy))
+                        .as("%s up to %d", strategy, bound)
+                        .isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    public void sumDoesNotOverflowIntTest() {
+        assertThat(aggregationEngine.sum(1_000_000, AggregationEngine.Strategy.CLOSED_FORM)).isEqualTo(500_000_500_000L);
+        assertThat(AggregationEngine.Strategy.parse("closed-form")).isEqualTo(AggregationEngine.Strategy.CLOSED_FORM);
+    }
+}
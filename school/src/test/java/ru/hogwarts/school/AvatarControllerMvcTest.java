@@ -0,0 +1,136 @@
+package ru.hogwarts.school;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartFile;
+import ru.hogwarts.school.controller.AvatarController;
+import ru.hogwarts.school.dto.AvatarPreview;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.PreviewStatus;
+import ru.hogwarts.school.service.AvatarRenditionService;
+import ru.hogwarts.school.service.AvatarService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(AvatarController.class)
+@Import(MockedBeansConfig.class)
+public class AvatarControllerMvcTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AvatarService avatarService;
+
+    @Autowired
+    private AvatarRenditionService avatarRenditionService;
+
+    @TempDir
+    Path tempDir;
+
+    private final byte[] content = "0123456789".getBytes();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Path file = tempDir.resolve("1.png");
+        Files.write(file, content);
+
+        Avatar avatar = new Avatar();
+        avatar.setFilePath(file.toString());
+        avatar.setFileSize(content.length);
+        avatar.setMediaType("image/png");
+
+        when(avatarService.findAvatar(1L)).thenReturn(avatar);
+        when(avatarService.findAvatar(2L)).thenReturn(new Avatar());
+        when(avatarService.findAvatarPreview(1L)).thenReturn(new AvatarPreview("image/png", PreviewStatus.PENDING, null));
+    }
+
+    @Test
+    public void downloadAvatarTest() throws Exception {
+        mockMvc.perform(get("/avatar/1/avatar"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    public void downloadAvatarRangeTest() throws Exception {
+        mockMvc.perform(get("/avatar/1/avatar").header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(content().string("2345"));
+
+        mockMvc.perform(get("/avatar/1/avatar").header(HttpHeaders.RANGE, "bytes=20-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+    }
+
+    @Test
+    public void downloadAvatarNotModifiedTest() throws Exception {
+        MvcResult result = mockMvc.perform(get("/avatar/1/avatar"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String eTag = result.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/avatar/1/avatar").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void downloadMissingAvatarTest() throws Exception {
+        mockMvc.perform(get("/avatar/2/avatar"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void downloadPendingPreviewTest() throws Exception {
+        mockMvc.perform(get("/avatar/1/avatar/preview"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    public void downloadRenditionTest() throws Exception {
+        byte[] rendition = {1, 2, 3};
+        when(avatarRenditionService.isSupportedWidth(48)).thenReturn(true);
+        when(avatarRenditionService.getRendition(any(Path.class), eq(48)))
+                .thenReturn(rendition);
+
+        mockMvc.perform(get("/avatar/1/avatar/preview?width=48"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(rendition));
+
+        mockMvc.perform(get("/avatar/1/avatar/preview?width=47"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void uploadOversizeAvatarTest() throws Exception {
+        doThrow(new MaxUploadSizeExceededException(content.length))
+                .when(avatarService).uploadAvatar(eq(3L), any(MultipartFile.class));
+
+        mockMvc.perform(multipart("/avatar/3/avatar")
+                        .file(new MockMultipartFile("avatar", "3.png", "image/png", content)))
+                .andExpect(status().isPayloadTooLarge());
+    }
+}
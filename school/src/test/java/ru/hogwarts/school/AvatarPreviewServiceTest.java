@@ -0,0 +1,142 @@
+package ru.hogwarts.school;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.PreviewStatus;
+import ru.hogwarts.school.repositories.AvatarRepository;
+import ru.hogwarts.school.service.AvatarPreviewService;
+import ru.hogwarts.school.service.ImageResizer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AvatarPreviewServiceTest {
+
+    private static final byte[] PREVIEW = {1, 2, 3};
+
+    private final Path file = Path.of("avatars", "blob");
+
+    private AvatarRepository avatarRepository;
+    private ImageResizer imageResizer;
+    private SimpleMeterRegistry meterRegistry;
+    private AvatarPreviewService previewService;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        avatarRepository = mock(AvatarRepository.class);
+        imageResizer = mock(ImageResizer.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(imageResizer.resize(any(Path.class), eq(100))).thenReturn(PREVIEW);
+
+        previewService = new AvatarPreviewService(avatarRepository, imageResizer, meterRegistry);
+        ReflectionTestUtils.setField(previewService, "workers", 1);
+        ReflectionTestUtils.setField(previewService, "queueCapacity", 1);
+        previewService.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        previewService.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void workerStoresPreviewTest() {
+        previewService.schedule(1L, file);
+
+        verify(avatarRepository, timeout(5000)).updatePreview(1L, file.toString(), PREVIEW, PreviewStatus.READY);
+    }
+
+    @Test
+    public void resizeFailureMarksPreviewFailedTest() throws IOException {
+        when(imageResizer.resize(any(Path.class), eq(100))).thenThrow(new IOException("not an image"));
+
+        previewService.schedule(1L, file);
+
+        verify(avatarRepository, timeout(5000)).updatePreview(1L, file.toString(), null, PreviewStatus.FAILED);
+    }
+
+    @Test
+    public void previewIsScheduledOnlyAfterCommitTest() {
+        TransactionSynchronizationManager.initSynchronization();
+        previewService.schedule(1L, file);
+
+        verify(avatarRepository, after(200).never()).updatePreview(anyLong(), anyString(), any(), any());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        verify(avatarRepository, timeout(5000)).updatePreview(1L, file.toString(), PREVIEW, PreviewStatus.READY);
+    }
+
+    @Test
+    public void fullQueueLeavesPreviewPendingForSweepTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        when(imageResizer.resize(any(Path.class), eq(100))).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return PREVIEW;
+        });
+
+        previewService.schedule(1L, file);
+        started.await();
+        previewService.schedule(2L, file);
+        previewService.schedule(3L, file);
+
+        assertThat(meterRegistry.counter("avatar.preview.rejected").count()).isEqualTo(1);
+        verify(avatarRepository, never()).updatePreview(eq(3L), anyString(), any(), any());
+
+        release.countDown();
+        verify(avatarRepository, timeout(5000)).updatePreview(2L, file.toString(), PREVIEW, PreviewStatus.READY);
+
+        Avatar pending = new Avatar(3L, file.toString(), 10, "image/png", null, null);
+        when(avatarRepository.findByPreviewStatusOrderById(eq(PreviewStatus.PENDING), any(Limit.class)))
+                .thenReturn(List.of(pending));
+        previewService.sweep();
+
+        verify(avatarRepository, timeout(5000)).updatePreview(3L, file.toString(), PREVIEW, PreviewStatus.READY);
+    }
+
+    @Test
+    public void sweepSkipsPreviewsAlreadyQueuedTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(imageResizer.resize(any(Path.class), eq(100))).thenAnswer(invocation -> {
+            release.await();
+            return PREVIEW;
+        });
+        previewService.schedule(1L, file);
+
+        when(avatarRepository.findByPreviewStatusOrderById(eq(PreviewStatus.PENDING), any(Limit.class)))
+                .thenReturn(List.of(new Avatar(1L, file.toString(), 10, "image/png", null, null)));
+        previewService.sweep();
+        release.countDown();
+
+        verify(avatarRepository, timeout(5000)).updatePreview(1L, file.toString(), PREVIEW, PreviewStatus.READY);
+        verify(imageResizer, after(200).times(1)).resize(file, 100);
+    }
+}
@@ -0,0 +1,161 @@
+package ru.hogwarts.school;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.hogwarts.school.service.AvatarRenditionService;
+import ru.hogwarts.school.service.ImageResizer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AvatarRenditionServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ImageResizer imageResizer;
+    private SimpleMeterRegistry meterRegistry;
+    private AvatarRenditionService renditionService;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        imageResizer = mock(ImageResizer.class);
+        when(imageResizer.resize(any(Path.class), anyInt())).thenAnswer(invocation -> new byte[4]);
+        meterRegistry = new SimpleMeterRegistry();
+        renditionService = new AvatarRenditionService(imageResizer, meterRegistry);
+        ReflectionTestUtils.setField(renditionService, "maxBytes", 10L);
+    }
+
+    @Test
+    public void leastRecentlyUsedRenditionIsEvictedByBytesTest() throws Exception {
+        Path a = file("a");
+        Path b = file("b");
+        Path c = file("c");
+
+        renditionService.getRendition(a, 48);
+        renditionService.getRendition(b, 48);
+        renditionService.getRendition(a, 48);
+        renditionService.getRendition(c, 48);
+
+        assertThat(meterRegistry.counter("avatar.rendition.evictions").count()).isEqualTo(1);
+        assertThat(meterRegistry.get("avatar.rendition.cache.bytes").gauge().value()).isEqualTo(8);
+
+        renditionService.getRendition(a, 48);
+        renditionService.getRendition(c, 48);
+        verify(imageResizer, times(1)).resize(a, 48);
+        verify(imageResizer, times(1)).resize(c, 48);
+
+        renditionService.getRendition(b, 48);
+        verify(imageResizer, times(2)).resize(b, 48);
+        assertThat(meterRegistry.counter("avatar.rendition.requests", "result", "hit").count()).isEqualTo(3);
+    }
+
+    @Test
+    public void renditionLargerThanCacheIsNotCachedTest() throws Exception {
+        Path a = file("a");
+        when(imageResizer.resize(a, 256)).thenAnswer(invocation -> new byte[11]);
+
+        renditionService.getRendition(a, 256);
+        renditionService.getRendition(a, 256);
+
+        verify(imageResizer, times(2)).resize(a, 256);
+        assertThat(meterRegistry.get("avatar.rendition.cache.bytes").gauge().value()).isZero();
+    }
+
+    @Test
+    public void modifiedOriginalIsResizedAgainTest() throws Exception {
+        Path a = file("a");
+        renditionService.getRendition(a, 48);
+
+        Files.setLastModifiedTime(a, FileTime.from(Instant.now().plusSeconds(60)));
+        renditionService.getRendition(a, 48);
+
+        verify(imageResizer, times(2)).resize(a, 48);
+    }
+
+    @Test
+    public void concurrentRequestsShareOneResizeTest() throws Exception {
+        Path a = file("a");
+        byte[] rendition = {1, 2, 3};
+        CountDownLatch release = new CountDownLatch(1);
+        when(imageResizer.resize(a, 48)).thenAnswer(invocation -> {
+            release.await();
+            return rendition;
+        });
+
+        List<Future<byte[]>> results = runConcurrently(4, () -> renditionService.getRendition(a, 48));
+        awaitCoalesced(3);
+        release.countDown();
+
+        for (Future<byte[]> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(rendition);
+        }
+        verify(imageResizer, times(1)).resize(a, 48);
+    }
+
+    @Test
+    public void coalescedRequestsShareTheFailureTest() throws Exception {
+        Path a = file("a");
+        CountDownLatch release = new CountDownLatch(1);
+        when(imageResizer.resize(a, 48)).thenAnswer(invocation -> {
+            release.await();
+            throw new IOException("not an image");
+        });
+
+        List<Future<byte[]>> results = runConcurrently(3, () -> renditionService.getRendition(a, 48));
+        awaitCoalesced(2);
+        release.countDown();
+
+        for (Future<byte[]> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IOException.class)
+                    .hasRootCauseMessage("not an image");
+        }
+        verify(imageResizer, times(1)).resize(a, 48);
+    }
+
+    private List<Future<byte[]>> runConcurrently(int requests, Callable<byte[]> request) {
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        List<Future<byte[]>> results = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            results.add(executor.submit(request));
+        }
+        executor.shutdown();
+        return results;
+    }
+
+    private void awaitCoalesced(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.counter("avatar.rendition.requests", "result", "coalesced").count() < expected) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private Path file(String name) throws IOException {
+        return Files.write(tempDir.resolve(name), new byte[]{0});
+    }
+}
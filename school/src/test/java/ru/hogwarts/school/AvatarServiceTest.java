@@ -0,0 +1,157 @@
+package ru.hogwarts.school;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.PreviewStatus;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repositories.AvatarRepository;
+import ru.hogwarts.school.repositories.StudentRepository;
+import ru.hogwarts.school.service.AvatarPreviewService;
+import ru.hogwarts.school.service.AvatarService;
+import ru.hogwarts.school.service.AvatarStorage;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AvatarServiceTest {
+
+    @TempDir
+    Path avatarsDir;
+
+    private AvatarRepository avatarRepository;
+    private PlatformTransactionManager transactionManager;
+    private AvatarService avatarService;
+
+    @BeforeEach
+    public void setUp() {
+        AvatarStorage avatarStorage = new AvatarStorage();
+        ReflectionTestUtils.setField(avatarStorage, "avatarsDir", avatarsDir.toString());
+        ReflectionTestUtils.setField(avatarStorage, "bufferSize", 8);
+        ReflectionTestUtils.setField(avatarStorage, "maxSize", DataSize.ofBytes(64));
+        ReflectionTestUtils.setField(avatarStorage, "memoryThreshold", DataSize.ofBytes(16));
+
+        StudentRepository studentRepository = mock(StudentRepository.class);
+        when(studentRepository.getById(1L)).thenReturn(new Student());
+        avatarRepository = mock(AvatarRepository.class);
+        when(avatarRepository.save(any(Avatar.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        transactionManager = mock(PlatformTransactionManager.class);
+
+        avatarService = new AvatarService(studentRepository, avatarRepository, mock(AvatarPreviewService.class),
+                avatarStorage, transactionManager);
+        ReflectionTestUtils.setField(avatarService, "reclaimGrace", Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void blobIsStoredBeforeTheTransactionStartsTest() throws Exception {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            assertThat(blobs()).hasSize(1);
+            return null;
+        });
+
+        avatarService.uploadAvatar(1L, upload("new avatar"));
+
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    public void unreferencedReplacedBlobIsDeletedTest() throws Exception {
+        Path previous = idleFile("old");
+        currentAvatar(previous);
+
+        avatarService.uploadAvatar(1L, upload("new avatar"));
+
+        assertThat(previous).doesNotExist();
+        assertThat(blobs()).hasSize(1);
+    }
+
+    @Test
+    public void replacedBlobStillReferencedIsKeptTest() throws Exception {
+        Path previous = idleFile("shared");
+        currentAvatar(previous);
+        when(avatarRepository.existsByFilePath(previous.toString())).thenReturn(true);
+
+        avatarService.uploadAvatar(1L, upload("new avatar"));
+
+        assertThat(previous).exists();
+    }
+
+    @Test
+    public void recentlyStoredBlobIsReclaimedAfterGraceTest() throws Exception {
+        Path previous = Files.writeString(avatarsDir.resolve("fresh"), "fresh");
+        currentAvatar(previous);
+
+        avatarService.uploadAvatar(1L, upload("new avatar"));
+        assertThat(previous).exists();
+
+        Files.setLastModifiedTime(previous, FileTime.from(Instant.now().minus(Duration.ofMinutes(2))));
+        avatarService.reclaimReplacedBlobs();
+
+        assertThat(previous).doesNotExist();
+    }
+
+    @Test
+    public void newBlobIsReclaimedWhenTheUpdateFailsTest() throws Exception {
+        when(avatarRepository.save(any(Avatar.class))).thenThrow(new IllegalStateException("student is gone"));
+        ReflectionTestUtils.setField(avatarService, "reclaimGrace", Duration.ZERO);
+
+        assertThatThrownBy(() -> avatarService.uploadAvatar(1L, upload("new avatar")))
+                .hasMessage("student is gone");
+
+        assertThat(blobs()).isEmpty();
+    }
+
+    @Test
+    public void fileOutsideTheAvatarsFolderIsNeverDeletedTest(@TempDir Path elsewhere) throws Exception {
+        Path previous = Files.writeString(elsewhere.resolve("old"), "old");
+        Files.setLastModifiedTime(previous, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+        currentAvatar(previous);
+
+        avatarService.uploadAvatar(1L, upload("new avatar"));
+
+        assertThat(previous).exists();
+    }
+
+    private void currentAvatar(Path filePath) {
+        Avatar avatar = new Avatar(1L, filePath.toString(), 3, "image/png", null, null);
+        avatar.setPreviewStatus(PreviewStatus.READY);
+        when(avatarRepository.findByStudentId(1L)).thenReturn(Optional.of(avatar));
+    }
+
+    private Path idleFile(String name) throws Exception {
+        Path file = Files.writeString(avatarsDir.resolve(name), name);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+        return file;
+    }
+
+    private Path[] blobs() throws Exception {
+        Path dir = avatarsDir.resolve("blobs");
+        if (!Files.exists(dir)) {
+            return new Path[0];
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).toArray(Path[]::new);
+        }
+    }
+
+    private static MockMultipartFile upload(String content) {
+        return new MockMultipartFile("avatar", "avatar.png", "image/png", content.getBytes());
+    }
+}
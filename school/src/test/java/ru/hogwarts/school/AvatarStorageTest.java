@@ -0,0 +1,181 @@
+package ru.hogwarts.school;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import ru.hogwarts.school.service.AvatarStorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AvatarStorageTest {
+
+    @TempDir
+    Path avatarsDir;
+
+    private AvatarStorage avatarStorage;
+
+    @BeforeEach
+    public void setUp() {
+        avatarStorage = new AvatarStorage();
+        ReflectionTestUtils.setField(avatarStorage, "avatarsDir", avatarsDir.toString());
+        ReflectionTestUtils.setField(avatarStorage, "bufferSize", 8);
+        ReflectionTestUtils.setField(avatarStorage, "maxSize", DataSize.ofBytes(64));
+        ReflectionTestUtils.setField(avatarStorage, "memoryThreshold", DataSize.ofBytes(16));
+    }
+
+    @Test
+    public void blobIsStoredUnderItsHashTest() throws Exception {
+        byte[] content = "small avatar".getBytes();
+        String hash = sha256(content);
+
+        Path stored = avatarStorage.store(new ByteArrayInputStream(content), content.length);
+
+        assertThat(stored).isEqualTo(avatarsDir.resolve(Path.of("blobs", hash.substring(0, 2), hash.substring(2, 4), hash)));
+        assertThat(stored).hasBinaryContent(content);
+        assertThat(avatarStorage.resolve(hash)).isEqualTo(stored);
+    }
+
+    @Test
+    public void duplicateInMemoryUploadIsNotWrittenTest() throws Exception {
+        byte[] content = "small avatar".getBytes();
+        Path first = avatarStorage.store(new ByteArrayInputStream(content), content.length);
+        deleteTmpDir();
+
+        Path second = avatarStorage.store(new ByteArrayInputStream(content), content.length);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(avatarsDir.resolve("tmp")).doesNotExist();
+        assertThat(blobs()).containsExactly(first);
+    }
+
+    @Test
+    public void duplicateUploadRefreshesTheGracePeriodTest() throws Exception {
+        byte[] content = "small avatar".getBytes();
+        Path stored = avatarStorage.store(new ByteArrayInputStream(content), content.length);
+        Files.setLastModifiedTime(stored, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+
+        avatarStorage.store(new ByteArrayInputStream(content), content.length);
+
+        assertThat(avatarStorage.deleteIfIdle(stored, Duration.ofMinutes(1))).isFalse();
+        assertThat(stored).exists();
+    }
+
+    @Test
+    public void largeUploadIsSpilledAndDeduplicatedTest() throws Exception {
+        byte[] content = "an avatar bigger than the memory threshold".getBytes();
+
+        Path first = avatarStorage.store(new ByteArrayInputStream(content), content.length);
+        Path second = avatarStorage.store(new ByteArrayInputStream(content), -1);
+
+        assertThat(first).hasBinaryContent(content).isEqualTo(second);
+        assertThat(first.getFileName().toString()).isEqualTo(sha256(content));
+        assertThat(blobs()).containsExactly(first);
+        assertThat(tmpFiles()).isEmpty();
+    }
+
+    @Test
+    public void tempFileIsRemovedWhenUploadFailsTest() {
+        InputStream failing = new SequenceInputStream(
+                new ByteArrayInputStream(new byte[40]),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("connection reset");
+                    }
+                });
+
+        assertThatThrownBy(() -> avatarStorage.store(failing, 50))
+                .isInstanceOf(IOException.class)
+                .hasMessage("connection reset");
+        assertThat(tmpFiles()).isEmpty();
+        assertThat(avatarsDir.resolve("blobs")).doesNotExist();
+    }
+
+    @Test
+    public void declaredSizeOverLimitIsRejectedWithoutReadingTest() {
+        InputStream unread = new InputStream() {
+            @Override
+            public int read() {
+                throw new AssertionError("stream must not be read");
+            }
+        };
+
+        assertThatThrownBy(() -> avatarStorage.store(unread, 65))
+                .isInstanceOf(MaxUploadSizeExceededException.class);
+        assertThat(avatarsDir.resolve("tmp")).doesNotExist();
+    }
+
+    @Test
+    public void oversizedStreamWithUnderstatedSizeIsRejectedTest() {
+        assertThatThrownBy(() -> avatarStorage.store(new ByteArrayInputStream(new byte[100]), 10))
+                .isInstanceOf(MaxUploadSizeExceededException.class);
+        assertThat(tmpFiles()).isEmpty();
+        assertThat(blobs()).isEmpty();
+    }
+
+    @Test
+    public void oversizedStreamBelowMemoryThresholdIsRejectedTest() {
+        ReflectionTestUtils.setField(avatarStorage, "memoryThreshold", DataSize.ofKilobytes(1));
+
+        assertThatThrownBy(() -> avatarStorage.store(new ByteArrayInputStream(new byte[100]), 10))
+                .isInstanceOf(MaxUploadSizeExceededException.class);
+        assertThat(avatarsDir.resolve("tmp")).doesNotExist();
+        assertThat(blobs()).isEmpty();
+    }
+
+    @Test
+    public void uploadOfExactlyMaxSizeIsStoredTest() throws Exception {
+        byte[] content = new byte[64];
+
+        Path stored = avatarStorage.store(new ByteArrayInputStream(content), -1);
+
+        assertThat(stored).hasBinaryContent(content);
+    }
+
+    private void deleteTmpDir() throws IOException {
+        for (Path file : tmpFiles()) {
+            Files.delete(file);
+        }
+        Files.deleteIfExists(avatarsDir.resolve("tmp"));
+    }
+
+    private Path[] tmpFiles() {
+        return list(avatarsDir.resolve("tmp"));
+    }
+
+    private Path[] blobs() {
+        return list(avatarsDir.resolve("blobs"));
+    }
+
+    private static Path[] list(Path dir) {
+        if (!Files.exists(dir)) {
+            return new Path[0];
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).toArray(Path[]::new);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
@@ -0,0 +1,56 @@
+package ru.hogwarts.school;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.hogwarts.school.config.EntityCacheConfig;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class EntityCacheConfigTest {
+
+    private CacheManager cacheManager;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        EntityCacheConfig config = new EntityCacheConfig();
+        ReflectionTestUtils.setField(config, "maxEntries", 10L);
+        ReflectionTestUtils.setField(config, "timeToLive", Duration.ofMinutes(1));
+        cacheManager = config.entityCacheManager();
+        meterRegistry = new SimpleMeterRegistry();
+        config.entityCacheMetrics(cacheManager).bindTo(meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cacheManager.close();
+    }
+
+    @Test
+    public void regionMetricsFollowCacheStatisticsTest() {
+        Cache<Object, Object> students = cacheManager.getCache("student");
+        students.put(1L, "Harry");
+        students.get(1L);
+        students.get(1L);
+        students.get(2L);
+
+        assertThat(meterRegistry.get("entity.cache.requests").tags("region", "student", "result", "hit")
+                .functionCounter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("entity.cache.requests").tags("region", "student", "result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("entity.cache.puts").tag("region", "student")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("entity.cache.hit.ratio").tag("region", "student")
+                .gauge().value()).isCloseTo(2.0 / 3, within(1e-9));
+        assertThat(meterRegistry.get("entity.cache.hit.ratio").tag("region", "faculty")
+                .gauge().value()).isZero();
+    }
+}
@@ -5,11 +5,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.hogwarts.school.controller.FacultyController;
+import ru.hogwarts.school.dto.FacultyVersion;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.service.AggregationEngine;
 import ru.hogwarts.school.service.StudentService;
 import ru.hogwarts.school.service.FacultyService;
 
@@ -18,6 +21,7 @@ import java.util.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -48,6 +52,7 @@ public class FacultyControllerMvcTest {
         faculty.setColor(color);
         faculty.setId(facultyId);
 
+        when(facultyService.findFacultyVersions(facultyId)).thenReturn(List.of(new FacultyVersion(0, null, null)));
         when(facultyService.findFaculty(facultyId)).thenReturn(faculty);
 
         mockMvc.perform(get("/faculty/" + facultyId)
@@ -156,6 +161,7 @@ public class FacultyControllerMvcTest {
         faculty.setColor(color);
         faculty.setId(facultyId);
 
+        when(facultyService.findFacultyVersions(any(Long.class))).thenReturn(List.of(new FacultyVersion(0, null, null)));
         when(facultyService.findFaculty(any(Long.class))).thenReturn(faculty);
 
         mockMvc.perform(get("/faculty/" + facultyId)
@@ -224,7 +230,7 @@ public class FacultyControllerMvcTest {
         students.add(student);
         faculty.setStudent(students);
 
-        when(facultyService.findFaculty(facultyId)).thenReturn(faculty);
+        when(facultyService.findFacultyStudents(facultyId)).thenReturn(List.of(student));
 
         mockMvc.perform(get("/faculty/" + facultyId + "/student")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -235,4 +241,96 @@ public class FacultyControllerMvcTest {
                 .andExpect(jsonPath("$[0].age").value(age));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getStudentsByFacultyNotModifiedTest() throws Exception {
+        long facultyId = 1L;
+
+        Student student = new Student();
+        student.setId(2L);
+        student.setName("testName");
+
+        when(facultyService.findFacultyStudents(facultyId)).thenReturn(List.of(student));
+
+        String eTag = mockMvc.perform(get("/faculty/" + facultyId + "/student"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/faculty/" + facultyId + "/student")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        student.setVersion(1);
+        mockMvc.perform(get("/faculty/" + facultyId + "/student")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("testName"));
+
+        when(facultyService.findFacultyStudents(facultyId)).thenReturn(null);
+        mockMvc.perform(get("/faculty/" + facultyId + "/student"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void getFacultyChangesETagWhenStudentChangesTest() throws Exception {
+        long facultyId = 1L;
+
+        Faculty faculty = new Faculty();
+        faculty.setId(facultyId);
+        faculty.setName("Hufflepuff");
+
+        when(facultyService.findFacultyVersions(facultyId)).thenReturn(List.of(new FacultyVersion(4, 2L, 0L)));
+        when(facultyService.findFaculty(facultyId)).thenReturn(faculty);
+
+        String eTag = mockMvc.perform(get("/faculty/" + facultyId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/faculty/" + facultyId)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        when(facultyService.findFacultyVersions(facultyId)).thenReturn(List.of(new FacultyVersion(4, 2L, 1L)));
+        mockMvc.perform(get("/faculty/" + facultyId)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Hufflepuff"));
+
+        when(facultyService.findFacultyVersions(facultyId)).thenReturn(List.of());
+        mockMvc.perform(get("/faculty/" + facultyId))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void getSmthIdkTest() throws Exception {
+        when(facultyService.getSmthIdk(10L, AggregationEngine.Strategy.FORK_JOIN)).thenReturn(55L);
+
+        mockMvc.perform(get("/faculty/smth-idk?bound=10&strategy=fork-join"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(55));
+
+        mockMvc.perform(get("/faculty/smth-idk?strategy=magic"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void findLongestFacultyNamesTest() throws Exception {
+        when(facultyService.findLongestFacultyNames(2)).thenReturn(List.of("Gryffindor", "Hufflepuff"));
+
+        mockMvc.perform(get("/faculty/longest-names?limit=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value("Gryffindor"))
+                .andExpect(jsonPath("$[1]").value("Hufflepuff"));
+
+        when(facultyService.findLongestFacultyNames(0)).thenReturn(null);
+
+        mockMvc.perform(get("/faculty/longest-names?limit=0"))
+                .andExpect(status().isBadRequest());
+
+        when(facultyService.findLoggestFacultyName()).thenReturn(null);
+
+        mockMvc.perform(get("/faculty/loggest-faculty-name"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,110 @@
+package ru.hogwarts.school;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.hogwarts.school.metrics.InvocationJournal;
+import ru.hogwarts.school.metrics.InvocationJournalReader;
+import ru.hogwarts.school.service.FacultyService;
+import ru.hogwarts.school.service.StudentService;
+
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InvocationJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path journalPath;
+    private InvocationJournal journal;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        journalPath = tempDir.resolve("invocations.journal");
+        journal = new InvocationJournal();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "path", journalPath);
+        ReflectionTestUtils.setField(journal, "capacity", 4);
+        journal.open();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        journal.close();
+    }
+
+    @Test
+    public void recordsAreDecodedInOrderTest() throws Exception {
+        Method findStudent = StudentService.class.getMethod("findStudent", long.class);
+        Method findFaculty = FacultyService.class.getMethod("findFaculty", long.class);
+
+        journal.record(findStudent, 1_000L, 2_500_000L, true);
+        journal.record(findFaculty, 2_000L, 500_000L, false);
+
+        List<InvocationJournalReader.Entry> entries = InvocationJournalReader.read(journalPath);
+
+        assertThat(entries).hasSize(2);
+        assertThat(entries.get(0).method()).isEqualTo("StudentService.findStudent");
+        assertThat(entries.get(0).durationNanos()).isEqualTo(2_500_000L);
+        assertThat(entries.get(0).success()).isTrue();
+        assertThat(entries.get(1).method()).isEqualTo("FacultyService.findFaculty");
+        assertThat(entries.get(1).success()).isFalse();
+        assertThat(entries.get(1).toString()).contains("FacultyService.findFaculty 0.500 ms error");
+    }
+
+    @Test
+    public void ringKeepsLatestRecordsTest() throws Exception {
+        Method findStudent = StudentService.class.getMethod("findStudent", long.class);
+
+        for (int i = 1; i <= 6; i++) {
+            journal.record(findStudent, i, i, true);
+        }
+
+        assertThat(InvocationJournalReader.read(journalPath))
+                .extracting(InvocationJournalReader.Entry::durationNanos)
+                .containsExactly(3L, 4L, 5L, 6L);
+    }
+
+    @Test
+    public void pidPlaceholderGivesEachProcessItsOwnFileTest() throws Exception {
+        InvocationJournal other = new InvocationJournal();
+        ReflectionTestUtils.setField(other, "enabled", true);
+        ReflectionTestUtils.setField(other, "path", tempDir.resolve("invocations-{pid}.journal"));
+        ReflectionTestUtils.setField(other, "capacity", 4);
+        other.open();
+        other.record(StudentService.class.getMethod("findStudent", long.class), 1L, 1L, true);
+        other.close();
+
+        assertThat(other.getFile()).isEqualTo(tempDir.resolve("invocations-" + ProcessHandle.current().pid() + ".journal"));
+        assertThat(InvocationJournalReader.read(other.getFile())).hasSize(1);
+        assertThat(InvocationJournalReader.read(journalPath)).isEmpty();
+    }
+
+    @Test
+    public void journalsOfExitedProcessesAreDeletedTest() throws Exception {
+        Process exited = new ProcessBuilder(ProcessHandle.current().info().command().orElseThrow(), "-version").start();
+        exited.waitFor();
+        Path stale = Files.createFile(tempDir.resolve("invocations-" + exited.pid() + ".journal"));
+        Path alive = Files.createFile(tempDir.resolve("invocations-" + ProcessHandle.current().parent().orElseThrow().pid() + ".journal"));
+        Path unrelated = Files.createFile(tempDir.resolve("invocations-backup.journal"));
+
+        InvocationJournal other = new InvocationJournal();
+        ReflectionTestUtils.setField(other, "enabled", true);
+        ReflectionTestUtils.setField(other, "path", tempDir.resolve("invocations-{pid}.journal"));
+        ReflectionTestUtils.setField(other, "capacity", 4);
+        other.open();
+        other.close();
+
+        assertThat(stale).doesNotExist();
+        assertThat(alive).exists();
+        assertThat(unrelated).exists();
+        assertThat(other.getFile()).exists();
+    }
+}
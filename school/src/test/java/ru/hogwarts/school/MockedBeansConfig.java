@@ -3,16 +3,40 @@ package ru.hogwarts.school;
 import org.mockito.Mockito;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
+import ru.hogwarts.school.service.AvatarRenditionService;
+import ru.hogwarts.school.service.AvatarService;
 import ru.hogwarts.school.service.FacultyService;
+import ru.hogwarts.school.service.StudentExportService;
+import ru.hogwarts.school.service.StudentImportService;
 import ru.hogwarts.school.service.StudentService;
 
 @TestConfiguration
 public class MockedBeansConfig {
+    @Bean
+    public AvatarService avatarService() {
+        return Mockito.mock(AvatarService.class);
+    }
+
     @Bean
     public StudentService studentService() {
         return Mockito.mock(StudentService.class);
     }
 
+    @Bean
+    public StudentExportService studentExportService() {
+        return Mockito.mock(StudentExportService.class);
+    }
+
+    @Bean
+    public StudentImportService studentImportService() {
+        return Mockito.mock(StudentImportService.class);
+    }
+
+    @Bean
+    public AvatarRenditionService avatarRenditionService() {
+        return Mockito.mock(AvatarRenditionService.class);
+    }
+
     @Bean
     public FacultyService facultyService() {
         return Mockito.mock(FacultyService.class);
@@ -0,0 +1,252 @@
+package ru.hogwarts.school;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import ru.hogwarts.school.dto.BatchImportResult;
+import ru.hogwarts.school.dto.StudentImportRow;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repositories.FacultyRepository;
+import ru.hogwarts.school.repositories.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+public class QueryCountTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    TestRestTemplate testRestTemplate;
+
+    @Autowired
+    FacultyRepository facultyRepository;
+
+    @Autowired
+    StudentRepository studentRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private Faculty faculty;
+    private final List<Student> students = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        faculty = new Faculty();
+        faculty.setName("Hufflepuff");
+        faculty.setColor("yellow");
+        facultyRepository.save(faculty);
+
+        for (int i = 0; i < 3; i++) {
+            Student student = new Student();
+            student.setName("Student " + i);
+            student.setAge(70 + i);
+            student.setFaculty(faculty);
+            students.add(studentRepository.save(student));
+        }
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        studentRepository.deleteAllById(students.stream().map(Student::getId).toList());
+        students.clear();
+        facultyRepository.deleteById(faculty.getId());
+    }
+
+    @Test
+    public void getStudentsByFacultyIsServedFromCacheTest() {
+        String url = getAddress() + "/faculty/" + faculty.getId() + "/student";
+
+        ResponseEntity<String> response = assertStatements(2, () -> testRestTemplate.getForEntity(url, String.class));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        String eTag = response.getHeaders().getETag();
+
+        response = assertStatements(0, () -> testRestTemplate.getForEntity(url, String.class));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        response = assertStatements(0, () -> conditionalGet(url, eTag));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        Student student = students.get(0);
+        student.setName("Renamed");
+        testRestTemplate.put(getAddress() + "/student/" + student.getId(), student);
+
+        response = conditionalGet(url, eTag);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).contains("Renamed");
+    }
+
+    @Test
+    public void getFacultyChecksVersionsThenUsesSingleQueryTest() {
+        String url = getAddress() + "/faculty/" + faculty.getId();
+
+        ResponseEntity<String> response = assertStatements(2, () -> testRestTemplate.getForEntity(url, String.class));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        response = assertStatements(2, () -> testRestTemplate.getForEntity(url, String.class));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    public void getFacultyNotModifiedUsesVersionQueryOnlyTest() {
+        String url = getAddress() + "/faculty/" + faculty.getId();
+        String eTag = testRestTemplate.getForEntity(url, String.class).getHeaders().getETag();
+
+        ResponseEntity<String> response = assertStatements(1, () -> conditionalGet(url, eTag));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        Student student = students.get(0);
+        student.setName("Renamed");
+        testRestTemplate.put(getAddress() + "/student/" + student.getId(), student);
+
+        response = conditionalGet(url, eTag);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).contains("Renamed");
+    }
+
+    @Test
+    public void getStudentIsServedFromCacheTest() {
+        String url = getAddress() + "/student/" + students.get(0).getId();
+
+        ResponseEntity<String> response = assertStatements(2, () -> testRestTemplate.getForEntity(url, String.class));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        response = assertStatements(1, () -> testRestTemplate.getForEntity(url, String.class));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    public void deleteStudentEvictsFacultyStudentsTest() {
+        String url = getAddress() + "/faculty/" + faculty.getId() + "/student";
+        testRestTemplate.getForEntity(url, String.class);
+
+        Student student = students.get(0);
+        testRestTemplate.delete(getAddress() + "/student/" + student.getId());
+
+        ResponseEntity<String> response = testRestTemplate.getForEntity(url, String.class);
+        assertThat(response.getBody()).doesNotContain(student.getName());
+    }
+
+    @Test
+    public void findByColorOrNameIsServedFromLookupCacheTest() {
+        String url = getAddress() + "/faculty/color-or-name?color=YELLOW&name=nobody";
+
+        ResponseEntity<String> response = assertStatements(2, () -> testRestTemplate.getForEntity(url, String.class));
+        assertThat(response.getBody()).contains("Hufflepuff");
+
+        response = assertStatements(0, () -> testRestTemplate.getForEntity(url, String.class));
+        assertThat(response.getBody()).contains("Hufflepuff");
+    }
+
+    @Test
+    public void findByColorOrNameLoadsCachedIdsInOneStatementTest() {
+        Faculty other = new Faculty();
+        other.setName("Other " + faculty.getId());
+        other.setColor("grey");
+        facultyRepository.save(other);
+        try {
+            String url = getAddress() + "/faculty/color-or-name?color=YELLOW&name=" + other.getName();
+            testRestTemplate.getForEntity(url, String.class);
+            entityManagerFactory.getCache().evict(Faculty.class);
+
+            ResponseEntity<String> response = assertStatements(1, () -> testRestTemplate.getForEntity(url, String.class));
+            assertThat(response.getBody()).contains("Hufflepuff", other.getName());
+
+            assertStatements(0, () -> testRestTemplate.getForEntity(url, String.class));
+        } finally {
+            facultyRepository.deleteById(other.getId());
+        }
+    }
+
+    @Test
+    public void getFacultyByStudentUsesSingleQueryTest() {
+        ResponseEntity<String> response = assertStatements(1, () ->
+                testRestTemplate.getForEntity(getAddress() + "/student/" + students.get(0).getId() + "/faculty", String.class));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    public void findStudentsByAgeDoesNotLoadFacultiesTest() {
+        ResponseEntity<String> response = assertStatements(1, () ->
+                testRestTemplate.getForEntity(getAddress() + "/student/age/70", String.class));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    public void getAverageAgeStreamReadsAgesWithoutEntitiesTest() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        ResponseEntity<Double> response = assertStatements(1, () ->
+                testRestTemplate.getForEntity(getAddress() + "/student/average-age-stream", Double.class));
+
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(response.getBody()).isCloseTo(studentRepository.getAverageAge(), within(1e-9));
+    }
+
+    @Test
+    public void importReferencesFacultyWithoutLoadingItTest() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<StudentImportRow> rows = List.of(
+                new StudentImportRow("Imported 1", 80, faculty.getId()),
+                new StudentImportRow("Imported 2", 81, faculty.getId()));
+
+        ResponseEntity<BatchImportResult> response = testRestTemplate.postForEntity(
+                getAddress() + "/student/batch", rows, BatchImportResult.class);
+        studentRepository.findByAge(80).forEach(students::add);
+        studentRepository.findByAge(81).forEach(students::add);
+
+        assertThat(response.getBody().imported()).isEqualTo(2);
+        assertThat(statistics.getEntityStatistics(Faculty.class.getName()).getLoadCount()).isZero();
+        assertThat(students).filteredOn(student -> student.getAge() >= 80)
+                .allSatisfy(student -> assertThat(student.getFaculty().getId()).isEqualTo(faculty.getId()));
+    }
+
+    private <T> T assertStatements(long expected, Supplier<T> request) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        T result = request.get();
+
+        assertThat(statistics.getPrepareStatementCount())
+                .as("SQL statements executed")
+                .isEqualTo(expected);
+        return result;
+    }
+
+    private ResponseEntity<String> conditionalGet(String url, String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        return testRestTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
+    private String getAddress() {
+        return "http://localhost:" + port;
+    }
+}
@@ -0,0 +1,94 @@
+package ru.hogwarts.school;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.hogwarts.school.config.ReplicaRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private DataSource primary;
+    private DataSource first;
+    private DataSource second;
+    private Connection primaryConnection;
+    private Connection firstConnection;
+    private Connection secondConnection;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        primary = mock(DataSource.class);
+        first = mock(DataSource.class);
+        second = mock(DataSource.class);
+        primaryConnection = mock(Connection.class);
+        firstConnection = mock(Connection.class);
+        secondConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(first.getConnection()).thenReturn(firstConnection);
+        when(second.getConnection()).thenReturn(secondConnection);
+    }
+
+    @Test
+    public void connectionsAreTakenFromReplicasRoundRobinTest() throws SQLException {
+        ReplicaRoutingDataSource dataSource = routing(Duration.ofMinutes(1));
+
+        assertThat(dataSource.getConnection()).isSameAs(firstConnection);
+        assertThat(dataSource.getConnection()).isSameAs(secondConnection);
+        assertThat(dataSource.getConnection()).isSameAs(firstConnection);
+        verify(primary, never()).getConnection();
+        assertThat(meterRegistry.counter("datasource.routing.connections",
+                "target", "replica-0", "outcome", "success").count()).isEqualTo(2);
+    }
+
+    @Test
+    public void failedReplicaIsSkippedUntilRetryAfterTest() throws SQLException {
+        when(first.getConnection()).thenThrow(new SQLTransientConnectionException("down"));
+        ReplicaRoutingDataSource dataSource = routing(Duration.ofMinutes(1));
+
+        assertThat(dataSource.getConnection()).isSameAs(secondConnection);
+        assertThat(dataSource.getConnection()).isSameAs(secondConnection);
+        assertThat(dataSource.getConnection()).isSameAs(secondConnection);
+        verify(first, times(1)).getConnection();
+        assertThat(meterRegistry.counter("datasource.routing.connections",
+                "target", "replica-0", "outcome", "failure").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void primaryIsUsedWhenNoReplicaIsAvailableTest() throws SQLException {
+        when(first.getConnection()).thenThrow(new SQLTransientConnectionException("down"));
+        when(second.getConnection()).thenThrow(new SQLTransientConnectionException("down"));
+        ReplicaRoutingDataSource dataSource = routing(Duration.ZERO);
+
+        assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+
+        doReturn(firstConnection).when(first).getConnection();
+        assertThat(dataSource.getConnection()).isSameAs(firstConnection);
+        assertThat(meterRegistry.counter("datasource.routing.connections",
+                "target", "primary", "outcome", "success").count()).isEqualTo(1);
+    }
+
+    private ReplicaRoutingDataSource routing(Duration retryAfter) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-0", first);
+        replicas.put("replica-1", second);
+        return new ReplicaRoutingDataSource(primary, replicas, retryAfter, meterRegistry);
+    }
+}
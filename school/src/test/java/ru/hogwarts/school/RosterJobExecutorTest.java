@@ -0,0 +1,94 @@
+package ru.hogwarts.school;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.hogwarts.school.service.RosterJobExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RosterJobExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RosterJobExecutor rosterJobExecutor;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        rosterJobExecutor = new RosterJobExecutor(meterRegistry);
+        ReflectionTestUtils.setField(rosterJobExecutor, "workers", 3);
+        ReflectionTestUtils.setField(rosterJobExecutor, "queueCapacity", 10);
+        rosterJobExecutor.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        rosterJobExecutor.shutdown();
+    }
+
+    @Test
+    public void orderedJobKeepsListOrderTest() {
+        List<Integer> items = IntStream.range(0, 100).boxed().toList();
+        Queue<String> lines = new ConcurrentLinkedQueue<>();
+
+        rosterJobExecutor.run("test", items, String::valueOf, lines::add, true).join();
+
+        assertThat(lines).containsExactlyElementsOf(items.stream().map(String::valueOf).toList());
+    }
+
+    @Test
+    public void unorderedJobHandlesFewerItemsThanWorkersTest() {
+        Queue<String> lines = new ConcurrentLinkedQueue<>();
+
+        rosterJobExecutor.run("test", List.of("Harry", "Ron"), String::toUpperCase, lines::add, false).join();
+        rosterJobExecutor.run("test", List.<String>of(), String::toUpperCase, lines::add, false).join();
+
+        assertThat(lines).containsExactlyInAnyOrder("HARRY", "RON");
+    }
+
+    @Test
+    public void jobIsRejectedWholeWhenQueueCannotTakeAllPartitionsTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Function<String, String> blocking = item -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return item;
+        };
+        Queue<String> lines = new ConcurrentLinkedQueue<>();
+
+        List<CompletableFuture<Void>> accepted = new ArrayList<>();
+        for (int job = 0; job < 3; job++) {
+            accepted.add(rosterJobExecutor.run("fill", List.of("a", "b", "c"), blocking, lines::add, false));
+        }
+        CompletableFuture<Void> rejected = rosterJobExecutor.run("full", List.of("x", "y", "z"), blocking, lines::add, false);
+        accepted.add(rosterJobExecutor.run("fits", List.of("d"), blocking, lines::add, false));
+
+        assertThat(rejected).isCompletedExceptionally();
+        assertThatThrownBy(rejected::join).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(meterRegistry.counter("roster.rejected").count()).isEqualTo(1);
+
+        release.countDown();
+        CompletableFuture.allOf(accepted.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertThat(lines).hasSize(10).doesNotContain("x", "y", "z");
+
+        rosterJobExecutor.run("after", List.of("x", "y", "z"), String::valueOf, lines::add, false).get(5, TimeUnit.SECONDS);
+        assertThat(lines).contains("x", "y", "z");
+    }
+}
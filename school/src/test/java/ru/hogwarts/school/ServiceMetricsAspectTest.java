@@ -0,0 +1,72 @@
+package ru.hogwarts.school;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Service;
+import ru.hogwarts.school.metrics.InvocationJournal;
+import ru.hogwarts.school.metrics.ServiceMetricsAspect;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ServiceMetricsAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ServiceMetricsAspect aspect;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        aspect = new ServiceMetricsAspect(meterRegistry, new InvocationJournal());
+    }
+
+    @Test
+    public void serviceMethodsAreTimedByOutcomeTest() {
+        RosterService service = proxy(new RosterService());
+
+        service.roster();
+        assertThatThrownBy(service::fail).isInstanceOf(IllegalStateException.class);
+
+        assertThat(meterRegistry.get("school.service.invocations")
+                .tags("class", "RosterService", "method", "roster", "outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("school.service.invocations")
+                .tags("method", "fail", "outcome", "error", "exception", "IllegalStateException").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void componentMethodsAreNotTimedTest() {
+        proxy(new RosterHelper()).help();
+
+        assertThat(meterRegistry.find("school.service.invocations").timers()).isEmpty();
+    }
+
+    private <T> T proxy(T target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    @Service
+    public static class RosterService {
+
+        public String roster() {
+            return "roster";
+        }
+
+        public void fail() {
+            throw new IllegalStateException("no roster");
+        }
+    }
+
+    @Component
+    public static class RosterHelper {
+
+        public String help() {
+            return "help";
+        }
+    }
+}
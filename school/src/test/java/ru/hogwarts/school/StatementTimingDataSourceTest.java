@@ -0,0 +1,92 @@
+package ru.hogwarts.school;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.hogwarts.school.dto.StatementSummary;
+import ru.hogwarts.school.metrics.SqlStatementStatistics;
+import ru.hogwarts.school.metrics.StatementTimingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StatementTimingDataSourceTest {
+
+    private SqlStatementStatistics statistics;
+    private DataSource dataSource;
+    private PreparedStatement preparedStatement;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        statistics = new SqlStatementStatistics(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(statistics, "slowThreshold", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(statistics, "maxFingerprints", 10);
+
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        preparedStatement = mock(PreparedStatement.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        dataSource = new StatementTimingDataSource(target, statistics);
+    }
+
+    @Test
+    public void fingerprintIgnoresLiteralsAndInListLengthTest() {
+        assertThat(SqlStatementStatistics.fingerprint("SELECT * FROM student s1_0  WHERE s1_0.name = 'O''Brien'\n LIMIT 5"))
+                .isEqualTo("SELECT * FROM student s1_0 WHERE s1_0.name = ? LIMIT ?");
+        assertThat(SqlStatementStatistics.fingerprint("select f1_0.id from faculty f1_0 where f1_0.id in (?,?,?)"))
+                .isEqualTo(SqlStatementStatistics.fingerprint("select f1_0.id from faculty f1_0 where f1_0.id in (?, ?)"));
+    }
+
+    @Test
+    public void executionsAreAggregatedByFingerprintTest() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            for (int i = 0; i < 3; i++) {
+                PreparedStatement statement = connection.prepareStatement("select * from student where age between ? and ?");
+                statement.setInt(1, 10);
+                statement.setInt(2, 20);
+                statement.executeQuery();
+            }
+            connection.createStatement().execute("SELECT AVG(age) FROM student WHERE age > 11");
+            connection.createStatement().execute("SELECT AVG(age) FROM student WHERE age > 12");
+        }
+
+        verify(preparedStatement, times(3)).executeQuery();
+        List<StatementSummary> top = statistics.top(10);
+        assertThat(top).extracting(StatementSummary::fingerprint, StatementSummary::count)
+                .containsExactlyInAnyOrder(
+                        tuple("select * from student where age between ? and ?", 3L),
+                        tuple("SELECT AVG(age) FROM student WHERE age > ?", 2L));
+        assertThat(statistics.top(1)).hasSize(1);
+    }
+
+    @Test
+    public void slowStatementsAreRecordedTest() throws SQLException {
+        ReflectionTestUtils.setField(statistics, "slowThreshold", Duration.ZERO);
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement statement = connection.prepareStatement("select * from faculty where name = ?");
+            statement.setNull(1, Types.VARCHAR);
+            statement.executeQuery();
+        }
+
+        assertThat(statistics.top(10)).singleElement()
+                .extracting(StatementSummary::caller)
+                .isEqualTo("unknown");
+    }
+}
@@ -5,19 +5,41 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.hogwarts.school.controller.StudentController;
+import ru.hogwarts.school.dto.AgeStatistics;
+import ru.hogwarts.school.dto.BatchImportError;
+import ru.hogwarts.school.dto.BatchImportResult;
+import ru.hogwarts.school.dto.CursorPage;
+import ru.hogwarts.school.dto.FacultyAgeStatistics;
+import ru.hogwarts.school.dto.StudentImportRow;
+import ru.hogwarts.school.dto.StudentStatistics;
 import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.service.StudentExportService;
+import ru.hogwarts.school.service.StudentImportService;
 import ru.hogwarts.school.service.StudentService;
 import ru.hogwarts.school.model.Faculty;
 
+import java.io.OutputStream;
+import java.io.Reader;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(StudentController.class)
@@ -30,6 +52,12 @@ public class StudentControllerMvcTest {
     @Autowired
     private StudentService studentService;
 
+    @Autowired
+    private StudentExportService studentExportService;
+
+    @Autowired
+    private StudentImportService studentImportService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -55,6 +83,35 @@ public class StudentControllerMvcTest {
                 .andExpect(jsonPath("$.age").value(age));
     }
 
+    @Test
+    public void getStudentNotModifiedTest() throws Exception {
+        long id = 1L;
+
+        Student student = new Student();
+        student.setId(id);
+        student.setName("testName");
+        student.setVersion(3);
+
+        clearInvocations(studentService);
+        when(studentService.findStudentVersion(id)).thenReturn(3L);
+        when(studentService.findStudent(id)).thenReturn(student);
+
+        mockMvc.perform(get("/student/" + id))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+
+        mockMvc.perform(get("/student/" + id)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(studentService, times(1)).findStudent(id);
+
+        mockMvc.perform(get("/student/" + id)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("testName"));
+    }
+
     @Test
     public void createStudentTest() throws Exception {
         String name = "name";
@@ -237,7 +294,7 @@ public class StudentControllerMvcTest {
         student.setAge(age);
         student.setFaculty(faculty);
 
-        when(studentService.findStudent(idStudent)).thenReturn(student);
+        when(studentService.findStudentWithFaculty(idStudent)).thenReturn(student);
 
         mockMvc.perform(get("/student/" + idStudent + "/faculty"))
                 .andExpect(status().isOk())
@@ -247,4 +304,119 @@ public class StudentControllerMvcTest {
 
 
     }
+
+    @Test
+    public void getStudentsAfterCursorTest() throws Exception {
+        Student student = new Student();
+        student.setId(5L);
+        student.setName("name");
+        student.setAge(11);
+
+        String cursor = CursorPage.encode(4L);
+        when(studentService.getStudentsAfter(cursor, 1))
+                .thenReturn(new CursorPage<>(List.of(student), CursorPage.encode(5L)));
+
+        mockMvc.perform(get("/student?limit=1&after=" + cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(5L))
+                .andExpect(jsonPath("$.nextCursor").value(CursorPage.encode(5L)));
+
+        mockMvc.perform(get("/student?limit=0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void findNamesByPrefixTest() throws Exception {
+        when(studentService.findNamesByPrefix("ha", true, Sort.Direction.DESC))
+                .thenReturn(List.of("Harry", "Hagrid"));
+
+        mockMvc.perform(get("/student/names?prefix=ha&ignoreCase=true&direction=DESC"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value("Harry"))
+                .andExpect(jsonPath("$[1]").value("Hagrid"));
+
+        mockMvc.perform(get("/student/names?prefix= "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getStatisticsTest() throws Exception {
+        AgeStatistics total = new AgeStatistics(2, 15.0, 10, 20);
+        when(studentService.getStatistics())
+                .thenReturn(new StudentStatistics(total, List.of(new FacultyAgeStatistics(1L, total))));
+
+        mockMvc.perform(get("/student/statistics"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total.count").value(2))
+                .andExpect(jsonPath("$.total.averageAge").value(15.0))
+                .andExpect(jsonPath("$.faculties[0].facultyId").value(1))
+                .andExpect(jsonPath("$.faculties[0].statistics.maxAge").value(20));
+    }
+
+    @Test
+    public void exportStudentsTest() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("id,name,age,faculty_id,faculty_name\n1,Harry,11,1,Gryffindor\n".getBytes());
+            return null;
+        }).when(studentExportService).export(eq(StudentExportService.Format.CSV), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/student/export?format=csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofMinutes(30).toMillis());
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(content().string("id,name,age,faculty_id,faculty_name\n1,Harry,11,1,Gryffindor\n"));
+
+        mockMvc.perform(get("/student/export?format=xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void importStudentsTest() throws Exception {
+        when(studentImportService.importStudents(List.of(
+                new StudentImportRow("Harry", 11, 1L),
+                new StudentImportRow("", 12, null))))
+                .thenReturn(new BatchImportResult(1, List.of(new BatchImportError(2, "Name is required"))));
+
+        mockMvc.perform(post("/student/batch")
+                        .content("[{\"name\":\"Harry\",\"age\":11,\"facultyId\":1},{\"name\":\"\",\"age\":12}]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(2))
+                .andExpect(jsonPath("$.errors[0].message").value("Name is required"));
+
+        when(studentImportService.importStudentsCsv(any(Reader.class)))
+                .thenReturn(new BatchImportResult(2, List.of()));
+
+        mockMvc.perform(post("/student/batch")
+                        .content("name,age\nHarry,11\nRon,11\n")
+                        .contentType("text/csv"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2));
+    }
+
+    @Test
+    public void printNamesTest() throws Exception {
+        when(studentService.printNameSynchronized()).thenReturn(CompletableFuture.completedFuture(null));
+
+        MvcResult result = mockMvc.perform(get("/student/print-synchronized"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        when(studentService.printNameParallel())
+                .thenReturn(CompletableFuture.failedFuture(new RejectedExecutionException()));
+
+        result = mockMvc.perform(get("/student/print-parallel"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable());
+    }
 }
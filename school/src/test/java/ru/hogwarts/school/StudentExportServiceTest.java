@@ -0,0 +1,76 @@
+package ru.hogwarts.school;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.hogwarts.school.dto.StudentExportRow;
+import ru.hogwarts.school.repositories.StudentRepository;
+import ru.hogwarts.school.service.StudentExportService;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StudentExportServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicBoolean streamClosed = new AtomicBoolean();
+
+    private StudentExportService exportService;
+
+    @BeforeEach
+    public void setUp() {
+        List<StudentExportRow> rows = List.of(
+                new StudentExportRow(1L, "Harry", 11, 1L, "Gryffindor"),
+                new StudentExportRow(2L, "Potter, Harry", 12, null, null),
+                new StudentExportRow(3L, "Ronald \"Ron\" Weasley", 13, 1L, "Gryffindor"),
+                new StudentExportRow(4L, "Luna\nLovegood", 14, 2L, "Raven,claw"));
+        StudentRepository studentRepository = mock(StudentRepository.class);
+        when(studentRepository.streamExportRows())
+                .thenAnswer(invocation -> rows.stream().onClose(() -> streamClosed.set(true)));
+
+        exportService = new StudentExportService(studentRepository, objectMapper);
+        ReflectionTestUtils.setField(exportService, "flushRows", 2);
+    }
+
+    @Test
+    public void csvQuotesCommasQuotesAndNewlinesTest() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(StudentExportService.Format.CSV, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                id,name,age,faculty_id,faculty_name
+                1,Harry,11,1,Gryffindor
+                2,"Potter, Harry",12,,
+                3,"Ronald ""Ron"" Weasley",13,1,Gryffindor
+                4,"Luna
+                Lovegood",14,2,"Raven,claw"
+                """);
+        assertThat(streamClosed).isTrue();
+    }
+
+    @Test
+    public void ndjsonWritesOneEscapedObjectPerLineTest() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(StudentExportService.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(4);
+        JsonNode luna = objectMapper.readTree(lines[3]);
+        assertThat(luna.get("name").asText()).isEqualTo("Luna\nLovegood");
+        assertThat(luna.get("facultyName").asText()).isEqualTo("Raven,claw");
+        JsonNode ron = objectMapper.readTree(lines[2]);
+        assertThat(ron.get("name").asText()).isEqualTo("Ronald \"Ron\" Weasley");
+        assertThat(objectMapper.readTree(lines[1]).get("facultyId").isNull()).isTrue();
+        assertThat(streamClosed).isTrue();
+    }
+}
@@ -0,0 +1,124 @@
+package ru.hogwarts.school;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.hogwarts.school.dto.BatchImportError;
+import ru.hogwarts.school.dto.BatchImportResult;
+import ru.hogwarts.school.dto.StudentImportRow;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repositories.FacultyRepository;
+import ru.hogwarts.school.repositories.StudentRepository;
+import ru.hogwarts.school.service.StudentImportService;
+import ru.hogwarts.school.service.StudentStatisticsService;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StudentImportServiceTest {
+
+    private StudentRepository studentRepository;
+    private StudentStatisticsService statisticsService;
+    private StudentImportService importService;
+
+    @BeforeEach
+    public void setUp() {
+        studentRepository = mock(StudentRepository.class);
+        statisticsService = mock(StudentStatisticsService.class);
+        FacultyRepository facultyRepository = mock(FacultyRepository.class);
+        when(facultyRepository.getReferenceById(anyLong())).thenAnswer(invocation -> {
+            Faculty faculty = new Faculty();
+            faculty.setId(invocation.getArgument(0));
+            return faculty;
+        });
+        importService = new StudentImportService(studentRepository, facultyRepository, statisticsService,
+                mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(importService, "batchSize", 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void csvParserHandlesQuotesAndReportsBadRowsTest() throws Exception {
+        String csv = """
+                name,age,faculty_id
+                "Potter, Harry",11,1
+                "Ronald ""Ron"" Weasley", 12 ,
+
+                Hermione,eleven
+                Luna,14,2,extra
+                "Neville,13
+                Ginny,10,x
+                """;
+
+        BatchImportResult result = importService.importStudentsCsv(new StringReader(csv));
+
+        ArgumentCaptor<List<Student>> saved = ArgumentCaptor.forClass(List.class);
+        verify(studentRepository).saveAll(saved.capture());
+        assertThat(saved.getValue())
+                .extracting(Student::getName, Student::getAge, s -> s.getFaculty() == null ? null : s.getFaculty().getId())
+                .containsExactly(
+                        tuple("Potter, Harry", 11, 1L),
+                        tuple("Ronald \"Ron\" Weasley", 12, null));
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.errors()).extracting(BatchImportError::row).containsExactly(5, 6, 7, 8);
+        assertThat(result.errors().get(0).message()).startsWith("Invalid number");
+        assertThat(result.errors().get(1).message()).isEqualTo("Expected name,age[,faculty_id] but got 4 fields");
+        assertThat(result.errors().get(2).message()).isEqualTo("Unterminated quoted field");
+        assertThat(result.errors().get(3).message()).startsWith("Invalid number");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void rowsAreFlushedInChunksOfBatchSizeTest() {
+        List<StudentImportRow> rows = List.of(
+                new StudentImportRow("Harry", 11, 1L),
+                new StudentImportRow("Ron", 11, 1L),
+                new StudentImportRow("", 11, null),
+                new StudentImportRow("Hermione", 11, 1L),
+                new StudentImportRow("Draco", 11, 2L),
+                new StudentImportRow("Luna", 11, 3L));
+
+        BatchImportResult result = importService.importStudents(rows);
+
+        ArgumentCaptor<List<Student>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(studentRepository, times(3)).saveAll(chunks.capture());
+        assertThat(chunks.getAllValues()).extracting(List::size).containsExactly(2, 2, 1);
+        assertThat(chunks.getAllValues().get(2).get(0).getFaculty().getId()).isEqualTo(3L);
+        assertThat(result.imported()).isEqualTo(5);
+        assertThat(result.errors()).containsExactly(new BatchImportError(3, "Name is required"));
+        verify(statisticsService, times(5)).onCreate(any(Student.class));
+    }
+
+    @Test
+    public void failedChunkFallsBackToSingleSavesTest() {
+        when(studentRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("batch failed"));
+        when(studentRepository.save(argThat(student -> "Ron".equals(student.getName()))))
+                .thenThrow(new DataIntegrityViolationException("faculty 99 does not exist"));
+
+        BatchImportResult result = importService.importStudents(List.of(
+                new StudentImportRow("Harry", 11, 1L),
+                new StudentImportRow("Ron", 11, 99L)));
+
+        verify(studentRepository, times(2)).save(any(Student.class));
+        assertThat(result.imported()).isEqualTo(1);
+        assertThat(result.errors()).containsExactly(new BatchImportError(2, "faculty 99 does not exist"));
+        verify(statisticsService).onCreate(argThat(student -> "Harry".equals(student.getName())));
+        verify(statisticsService, never()).onCreate(argThat(student -> "Ron".equals(student.getName())));
+    }
+}
@@ -0,0 +1,202 @@
+package ru.hogwarts.school;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.hogwarts.school.dto.AgeGroup;
+import ru.hogwarts.school.dto.AgeStatistics;
+import ru.hogwarts.school.dto.FacultyAgeStatistics;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repositories.StudentRepository;
+import ru.hogwarts.school.service.RosterJobExecutor;
+import ru.hogwarts.school.service.StudentService;
+import ru.hogwarts.school.service.StudentStatisticsService;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StudentStatisticsServiceTest {
+
+    private StudentRepository studentRepository;
+    private StudentStatisticsService statisticsService;
+
+    @BeforeEach
+    public void setUp() {
+        studentRepository = mock(StudentRepository.class);
+        statisticsService = new StudentStatisticsService(studentRepository);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void histogramKeepsCountAverageMinAndMaxTest() {
+        Faculty gryffindor = faculty(1L);
+        statisticsService.onCreate(student(11, gryffindor));
+        statisticsService.onCreate(student(11, gryffindor));
+        statisticsService.onCreate(student(17, gryffindor));
+        statisticsService.onCreate(student(14, null));
+
+        assertThat(statisticsService.getCount()).isEqualTo(4);
+        assertThat(statisticsService.getAverageAge()).isEqualTo(13.25);
+        assertThat(statisticsService.getStatistics().total()).isEqualTo(new AgeStatistics(4, 13.25, 11, 17));
+        assertThat(statisticsService.getStatistics().faculties()).containsExactlyInAnyOrder(
+                new FacultyAgeStatistics(1L, new AgeStatistics(3, 13.0, 11, 17)),
+                new FacultyAgeStatistics(null, new AgeStatistics(1, 14.0, 14, 14)));
+    }
+
+    @Test
+    public void deleteMovesMinAndMaxAndDropsEmptyFacultyTest() {
+        Faculty gryffindor = faculty(1L);
+        Faculty slytherin = faculty(2L);
+        Student youngest = student(11, gryffindor);
+        Student oldest = student(17, gryffindor);
+        Student other = student(15, slytherin);
+        statisticsService.onCreate(youngest);
+        statisticsService.onCreate(student(13, gryffindor));
+        statisticsService.onCreate(oldest);
+        statisticsService.onCreate(other);
+
+        statisticsService.onDelete(youngest);
+        statisticsService.onDelete(oldest);
+        statisticsService.onDelete(other);
+
+        assertThat(statisticsService.getStatistics().total()).isEqualTo(new AgeStatistics(1, 13.0, 13, 13));
+        assertThat(statisticsService.getStatistics().faculties())
+                .containsExactly(new FacultyAgeStatistics(1L, new AgeStatistics(1, 13.0, 13, 13)));
+
+        statisticsService.onDelete(student(13, gryffindor));
+        assertThat(statisticsService.getStatistics().total()).isEqualTo(new AgeStatistics(0, null, null, null));
+        assertThat(statisticsService.getStatistics().faculties()).isEmpty();
+    }
+
+    @Test
+    public void editMovesStudentBetweenFacultiesTest() {
+        Faculty gryffindor = faculty(1L);
+        Faculty slytherin = faculty(2L);
+        Student student = student(12, gryffindor);
+        statisticsService.onCreate(student);
+        statisticsService.onCreate(student(16, slytherin));
+
+        student.setFaculty(slytherin);
+        student.setAge(13);
+        statisticsService.onEdit(1L, 12, student);
+
+        assertThat(statisticsService.getStatistics().total()).isEqualTo(new AgeStatistics(2, 14.5, 13, 16));
+        assertThat(statisticsService.getStatistics().faculties())
+                .containsExactly(new FacultyAgeStatistics(2L, new AgeStatistics(2, 14.5, 13, 16)));
+    }
+
+    @Test
+    public void deltaIsAppliedOnlyAfterCommitTest() {
+        TransactionSynchronizationManager.initSynchronization();
+        statisticsService.onCreate(student(12, null));
+
+        assertThat(statisticsService.getCount()).isZero();
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(statisticsService.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void deltaIsDroppedOnRollbackTest() {
+        TransactionSynchronizationManager.initSynchronization();
+        statisticsService.onCreate(student(12, null));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(statisticsService.getCount()).isZero();
+    }
+
+    @Test
+    public void rebuildReplacesCountersTest() {
+        statisticsService.onCreate(student(30, null));
+        when(studentRepository.countByFacultyAndAge()).thenReturn(List.of(
+                new AgeGroup(1L, 11, 2),
+                new AgeGroup(2L, 15, 1)));
+
+        statisticsService.rebuild();
+
+        assertThat(statisticsService.getStatistics().total()).isEqualTo(new AgeStatistics(3, 37.0 / 3, 11, 15));
+    }
+
+    @Test
+    public void rebuildIsRetriedWhenWriteCommitsDuringQueryTest() {
+        when(studentRepository.countByFacultyAndAge())
+                .then(invocation -> {
+                    // committed after the aggregate was read, so the first result misses it
+                    statisticsService.onCreate(student(12, null));
+                    return List.of(new AgeGroup(null, 11, 1));
+                })
+                .thenReturn(List.of(new AgeGroup(null, 11, 1), new AgeGroup(null, 12, 1)));
+
+        statisticsService.rebuild();
+
+        verify(studentRepository, times(2)).countByFacultyAndAge();
+        assertThat(statisticsService.getStatistics().total()).isEqualTo(new AgeStatistics(2, 11.5, 11, 12));
+    }
+
+    @Test
+    public void rebuildIsSkippedWhileTransactionIsInFlightTest() {
+        when(studentRepository.countByFacultyAndAge()).thenReturn(List.of(new AgeGroup(null, 11, 5)));
+        TransactionSynchronizationManager.initSynchronization();
+        statisticsService.onCreate(student(12, null));
+
+        statisticsService.rebuild();
+        assertThat(statisticsService.getCount()).isZero();
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        statisticsService.rebuild();
+        assertThat(statisticsService.getCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void editUnknownStudentDoesNotTouchStatisticsTest() {
+        StudentStatisticsService statistics = mock(StudentStatisticsService.class);
+        StudentService studentService = new StudentService(studentRepository, statistics, mock(RosterJobExecutor.class));
+        when(studentRepository.findById(42L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> studentService.editStudent(42L, student(12, null)))
+                .isInstanceOf(NoSuchElementException.class);
+        verify(studentRepository, never()).save(any());
+        verify(statistics, never()).onEdit(any(), anyInt(), any());
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private static Faculty faculty(Long id) {
+        Faculty faculty = new Faculty();
+        faculty.setId(id);
+        return faculty;
+    }
+
+    private static Student student(int age, Faculty faculty) {
+        Student student = new Student();
+        student.setAge(age);
+        student.setFaculty(faculty);
+        return student;
+    }
+}